@@ -5,6 +5,7 @@ rm -rf _artifacts
 docker compose build && docker compose run --rm -v "$(pwd)":/src -w /src -u "$(id -u)":"$(id -g)" gradle \
   :querydroid:testReleaseUnitTest \
   :querydroid:publishToSonatype \
+  :querydroid-processor:publishToSonatype \
   :closeAndReleaseSonatypeStagingRepository
 EXIT_CODE=${PIPESTATUS[0]}
 
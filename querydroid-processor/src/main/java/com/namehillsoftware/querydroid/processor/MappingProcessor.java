@@ -0,0 +1,390 @@
+package com.namehillsoftware.querydroid.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+@SupportedAnnotationTypes(MappingProcessor.GENERATE_MAPPING_ANNOTATION)
+public class MappingProcessor extends AbstractProcessor {
+
+	static final String GENERATE_MAPPING_ANNOTATION = "com.namehillsoftware.querydroid.GenerateMapping";
+
+	private static final String MAPPING_SUFFIX = "_QueryDroidMapping";
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (final TypeElement annotation : annotations) {
+			for (final Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+				if (element.getKind() != ElementKind.CLASS) {
+					error(element, "Only classes can have generated mappings.");
+					continue;
+				}
+
+				try {
+					writeMapping((TypeElement) element);
+				} catch (IOException e) {
+					error(element, "Unable to write mapping: " + e.getMessage());
+				}
+			}
+		}
+
+		return true;
+	}
+
+	private void writeMapping(TypeElement type) throws IOException {
+		if (!isMappable(type)) return;
+
+		final Map<String, Accessor> setters = getSetters(type);
+		final Map<String, Accessor> getters = getGetters(type);
+
+		final PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+		final String packageName = packageElement.getQualifiedName().toString();
+		final String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+		final String mappingName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + MAPPING_SUFFIX;
+		final String typeName = type.getQualifiedName().toString();
+
+		final StringBuilder source = new StringBuilder();
+		if (!packageName.isEmpty())
+			source.append("package ").append(packageName).append(";\n\n");
+
+		source
+			.append("import android.database.Cursor;\n\n")
+			.append("import com.namehillsoftware.querydroid.SqLiteCommand;\n")
+			.append("import com.namehillsoftware.querydroid.SqLiteMapping;\n\n")
+			.append("public final class ").append(mappingName).append(" implements SqLiteMapping<").append(typeName).append("> {\n\n")
+			.append("\tprivate static final String[] setterColumns = ").append(toArrayLiteral(setters.keySet())).append(";\n\n")
+			.append("\tprivate static final String[] getterColumns = ").append(toArrayLiteral(getters.keySet())).append(";\n\n")
+			.append("\t@Override\n")
+			.append("\tpublic String[] getSetterColumns() {\n")
+			.append("\t\treturn setterColumns.clone();\n")
+			.append("\t}\n\n")
+			.append("\t@Override\n")
+			.append("\tpublic ").append(typeName).append(" newInstance() {\n")
+			.append("\t\treturn new ").append(typeName).append("();\n")
+			.append("\t}\n\n")
+			.append("\t@Override\n")
+			.append("\tpublic void setColumn(").append(typeName).append(" target, int setterIndex, Cursor cursor, int columnIndex) {\n")
+			.append("\t\tswitch (setterIndex) {\n");
+
+		int setterIndex = 0;
+		for (final Accessor setter : setters.values()) {
+			source.append("\t\t\tcase ").append(setterIndex++).append(":\n");
+			source.append(setter.getSetStatement()).append("\t\t\t\tbreak;\n");
+		}
+
+		source
+			.append("\t\t}\n")
+			.append("\t}\n\n")
+			.append("\t@Override\n")
+			.append("\tpublic void setLong(").append(typeName).append(" target, int setterIndex, long value) {\n")
+			.append("\t\tswitch (setterIndex) {\n");
+
+		setterIndex = 0;
+		for (final Accessor setter : setters.values()) {
+			final String setLongStatement = setter.getSetLongStatement();
+			if (setLongStatement != null) {
+				source.append("\t\t\tcase ").append(setterIndex).append(":\n");
+				source.append(setLongStatement).append("\t\t\t\tbreak;\n");
+			}
+			++setterIndex;
+		}
+
+		source
+			.append("\t\t\tdefault:\n")
+			.append("\t\t\t\tthrow new IllegalArgumentException(\"The column at setter index \" + setterIndex + \" cannot be set from a long.\");\n")
+			.append("\t\t}\n")
+			.append("\t}\n\n")
+			.append("\t@Override\n")
+			.append("\tpublic String[] getGetterColumns() {\n")
+			.append("\t\treturn getterColumns.clone();\n")
+			.append("\t}\n\n")
+			.append("\t@Override\n")
+			.append("\tpublic void addParameters(").append(typeName).append(" source, SqLiteCommand command) {\n");
+
+		for (final Map.Entry<String, Accessor> getter : getters.entrySet()) {
+			source
+				.append("\t\tcommand.addParameter(\"").append(getter.getKey()).append("\", ")
+				.append(getter.getValue().getGetExpression()).append(");\n");
+		}
+
+		source
+			.append("\t}\n")
+			.append("}\n");
+
+		final String qualifiedMappingName = packageName.isEmpty() ? mappingName : packageName + "." + mappingName;
+		final JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(qualifiedMappingName, type);
+		try (Writer writer = sourceFile.openWriter()) {
+			writer.write(source.toString());
+		}
+	}
+
+	private boolean isMappable(TypeElement type) {
+		final Set<Modifier> modifiers = type.getModifiers();
+		if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.ABSTRACT)) {
+			error(type, "Classes with generated mappings must be public and concrete.");
+			return false;
+		}
+
+		if (type.getNestingKind().isNested() && !modifiers.contains(Modifier.STATIC)) {
+			error(type, "Nested classes with generated mappings must be static.");
+			return false;
+		}
+
+		if (!type.getTypeParameters().isEmpty()) {
+			error(type, "Classes with generated mappings cannot be generic.");
+			return false;
+		}
+
+		for (final ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+			if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC))
+				return true;
+		}
+
+		error(type, "Classes with generated mappings must have a public no-argument constructor.");
+		return false;
+	}
+
+	// Mirrors SqLiteCommand.ClassReflections: public fields and setters, including inherited ones.
+	private Map<String, Accessor> getSetters(TypeElement type) {
+		final Map<String, Accessor> setters = new LinkedHashMap<>();
+		final List<? extends Element> members = processingEnv.getElementUtils().getAllMembers(type);
+
+		for (final VariableElement field : ElementFilter.fieldsIn(members)) {
+			final Set<Modifier> modifiers = field.getModifiers();
+			if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.FINAL)) continue;
+
+			final ColumnType columnType = ColumnType.of(field.asType());
+			if (columnType != null)
+				setters.put(toColumnName(field.getSimpleName().toString()), new FieldAccessor(field, columnType));
+		}
+
+		// Methods will override fields, if both exists.
+		for (final ExecutableElement method : ElementFilter.methodsIn(members)) {
+			final Set<Modifier> modifiers = method.getModifiers();
+			if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.STATIC)) continue;
+
+			final String name = method.getSimpleName().toString();
+			if (!name.startsWith("set") || method.getParameters().size() != 1) continue;
+
+			final ColumnType columnType = ColumnType.of(method.getParameters().get(0).asType());
+			if (columnType != null)
+				setters.put(toColumnName(name.substring(3)), new MethodAccessor(method, columnType));
+		}
+
+		return setters;
+	}
+
+	// Mirrors SqLiteAssistants.ClassReflections: public fields and getters declared by the class.
+	private Map<String, Accessor> getGetters(TypeElement type) {
+		final Map<String, Accessor> getters = new LinkedHashMap<>();
+		final List<? extends Element> members = type.getEnclosedElements();
+
+		for (final VariableElement field : ElementFilter.fieldsIn(members)) {
+			final Set<Modifier> modifiers = field.getModifiers();
+			if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.STATIC)) continue;
+
+			getters.put(toColumnName(field.getSimpleName().toString()), new FieldAccessor(field, ColumnType.of(field.asType())));
+		}
+
+		// Methods will override fields, if both exists.
+		for (final ExecutableElement method : ElementFilter.methodsIn(members)) {
+			final Set<Modifier> modifiers = method.getModifiers();
+			if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.STATIC)) continue;
+			if (!method.getParameters().isEmpty() || method.getReturnType().getKind() == TypeKind.VOID) continue;
+
+			final String name = method.getSimpleName().toString();
+			final ColumnType columnType = ColumnType.of(method.getReturnType());
+			if (name.startsWith("get")) {
+				getters.put(toColumnName(name.substring(3)), new MethodAccessor(method, columnType));
+				continue;
+			}
+
+			if (name.startsWith("is") && (columnType == ColumnType.BOOLEAN || columnType == ColumnType.BOXED_BOOLEAN))
+				getters.put(toColumnName(name), new MethodAccessor(method, columnType));
+		}
+
+		return getters;
+	}
+
+	private void error(Element element, String message) {
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+	}
+
+	private static String toColumnName(String propertyName) {
+		return propertyName.toLowerCase(Locale.ROOT);
+	}
+
+	private static String toArrayLiteral(Iterable<String> values) {
+		final StringBuilder builder = new StringBuilder("{");
+		for (final String value : values) {
+			if (builder.length() > 1) builder.append(", ");
+			builder.append('"').append(value).append('"');
+		}
+		return builder.append('}').toString();
+	}
+
+	private enum ColumnType {
+		BOOLEAN("cursor.getInt(columnIndex) != 0", "value != 0", true),
+		BOXED_BOOLEAN("cursor.getInt(columnIndex) != 0", "value != 0", false),
+		SHORT("cursor.getShort(columnIndex)", "(short) value", true),
+		BOXED_SHORT("cursor.getShort(columnIndex)", "(short) value", false),
+		INT("cursor.getInt(columnIndex)", "(int) value", true),
+		BOXED_INT("cursor.getInt(columnIndex)", "(int) value", false),
+		LONG("cursor.getLong(columnIndex)", "value", true),
+		BOXED_LONG("cursor.getLong(columnIndex)", "value", false),
+		FLOAT("cursor.getFloat(columnIndex)", "(float) value", true),
+		BOXED_FLOAT("cursor.getFloat(columnIndex)", "(float) value", false),
+		DOUBLE("cursor.getDouble(columnIndex)", "(double) value", true),
+		BOXED_DOUBLE("cursor.getDouble(columnIndex)", "(double) value", false),
+		STRING("cursor.getString(columnIndex)", "String.valueOf(value)", false),
+		BLOB("cursor.getBlob(columnIndex)", null, false),
+		ENUM(null, null, true);
+
+		private final String readExpression;
+		private final String fromLongExpression;
+		private final boolean skipsNulls;
+
+		ColumnType(String readExpression, String fromLongExpression, boolean skipsNulls) {
+			this.readExpression = readExpression;
+			this.fromLongExpression = fromLongExpression;
+			this.skipsNulls = skipsNulls;
+		}
+
+		String getReadExpression(TypeMirror type) {
+			return this == ENUM
+				? type.toString() + ".valueOf(cursor.getString(columnIndex))"
+				: readExpression;
+		}
+
+		static ColumnType of(TypeMirror type) {
+			switch (type.getKind()) {
+				case BOOLEAN: return BOOLEAN;
+				case SHORT: return SHORT;
+				case INT: return INT;
+				case LONG: return LONG;
+				case FLOAT: return FLOAT;
+				case DOUBLE: return DOUBLE;
+				case ARRAY:
+					return ((ArrayType) type).getComponentType().getKind() == TypeKind.BYTE ? BLOB : null;
+				case DECLARED:
+					final TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+					if (element.getKind() == ElementKind.ENUM) return ENUM;
+
+					switch (element.getQualifiedName().toString()) {
+						case "java.lang.Boolean": return BOXED_BOOLEAN;
+						case "java.lang.Short": return BOXED_SHORT;
+						case "java.lang.Integer": return BOXED_INT;
+						case "java.lang.Long": return BOXED_LONG;
+						case "java.lang.Float": return BOXED_FLOAT;
+						case "java.lang.Double": return BOXED_DOUBLE;
+						case "java.lang.String": return STRING;
+						default: return null;
+					}
+				default:
+					return null;
+			}
+		}
+	}
+
+	private abstract static class Accessor {
+		private final TypeMirror type;
+		private final ColumnType columnType;
+
+		Accessor(TypeMirror type, ColumnType columnType) {
+			this.type = type;
+			this.columnType = columnType;
+		}
+
+		String getSetStatement() {
+			final String readExpression = columnType.getReadExpression(type);
+			if (columnType.skipsNulls)
+				return "\t\t\t\tif (!cursor.isNull(columnIndex))\n\t\t\t\t\t" + getAssignment(readExpression) + ";\n";
+
+			if (columnType == ColumnType.STRING || columnType == ColumnType.BLOB)
+				return "\t\t\t\t" + getAssignment(readExpression) + ";\n";
+
+			return "\t\t\t\t" + getAssignment("cursor.isNull(columnIndex) ? null : " + readExpression) + ";\n";
+		}
+
+		String getSetLongStatement() {
+			return columnType.fromLongExpression != null
+				? "\t\t\t\t" + getAssignment(columnType.fromLongExpression) + ";\n"
+				: null;
+		}
+
+		String getGetExpression() {
+			final String readExpression = getReadExpression();
+			return columnType != null ? readExpression : "(Object) " + readExpression;
+		}
+
+		abstract String getAssignment(String valueExpression);
+
+		abstract String getReadExpression();
+	}
+
+	private static class FieldAccessor extends Accessor {
+		private final String name;
+
+		FieldAccessor(VariableElement field, ColumnType columnType) {
+			super(field.asType(), columnType);
+			name = field.getSimpleName().toString();
+		}
+
+		@Override
+		String getAssignment(String valueExpression) {
+			return "target." + name + " = " + valueExpression;
+		}
+
+		@Override
+		String getReadExpression() {
+			return "source." + name;
+		}
+	}
+
+	private static class MethodAccessor extends Accessor {
+		private final String name;
+
+		MethodAccessor(ExecutableElement method, ColumnType columnType) {
+			super(method.getParameters().isEmpty() ? method.getReturnType() : method.getParameters().get(0).asType(), columnType);
+			name = method.getSimpleName().toString();
+		}
+
+		@Override
+		String getAssignment(String valueExpression) {
+			return "target." + name + "(" + valueExpression + ")";
+		}
+
+		@Override
+		String getReadExpression() {
+			return "source." + name + "()";
+		}
+	}
+}
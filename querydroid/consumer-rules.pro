@@ -0,0 +1,8 @@
+# Generated mappings are found by the name of the class they map.
+-keepnames @com.namehillsoftware.querydroid.GenerateMapping class *
+-keep class **_QueryDroidMapping {
+    public <init>();
+}
+
+# Constructor mappings read parameter names from @ColumnName or from compiled parameter names.
+-keepattributes RuntimeVisibleParameterAnnotations,MethodParameters
@@ -0,0 +1,41 @@
+package com.namehillsoftware.querydroid;
+
+public final class CacheStatistics {
+	private final long hits;
+	private final long misses;
+	private final long evictions;
+	private final int size;
+
+	CacheStatistics(long hits, long misses, long evictions, int size) {
+		this.hits = hits;
+		this.misses = misses;
+		this.evictions = evictions;
+		this.size = size;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	public long getEvictions() {
+		return evictions;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	@Override
+	public String toString() {
+		return "CacheStatistics{" +
+			"hits=" + hits +
+			", misses=" + misses +
+			", evictions=" + evictions +
+			", size=" + size +
+			'}';
+	}
+}
@@ -0,0 +1,17 @@
+package com.namehillsoftware.querydroid;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Names the column that a constructor parameter is mapped from, for classes that are constructed from a row rather
+ * than set one column at a time. Not needed when parameter names are compiled in ({@code -parameters} for Java,
+ * {@code -java-parameters} for Kotlin, or Java records) and the app runs on API 26 or later.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface ColumnName {
+	String value();
+}
@@ -0,0 +1,162 @@
+package com.namehillsoftware.querydroid;
+
+import android.database.Cursor;
+
+/**
+ * A result read column by column: integers into a {@code long[]}, reals into a {@code double[]}, text into a
+ * {@code String[]}, and blobs into a {@code byte[][]}, with a bitmap of the null values of each column.
+ *
+ * A column's type is that of its first non-null value. An integer column that later holds a real is widened to
+ * doubles; other values are converted to the column's type by SQLite.
+ */
+public final class ColumnarResult {
+
+	private final String[] columnNames;
+	private final int[] columnTypes;
+	private final Object[] columnValues;
+	private final long[][] nullBitmaps;
+	private final int rowCount;
+
+	static ColumnarResult read(Cursor cursor) {
+		final int rowCount = cursor.getCount();
+		final int columnCount = cursor.getColumnCount();
+		final String[] columnNames = cursor.getColumnNames();
+		final int[] columnTypes = new int[columnCount];
+		final Object[] columnValues = new Object[columnCount];
+		final long[][] nullBitmaps = new long[columnCount][(rowCount + 63) >>> 6];
+
+		for (int row = 0; cursor.moveToNext(); row++) {
+			for (int column = 0; column < columnCount; column++) {
+				final int valueType = cursor.getType(column);
+				if (valueType == Cursor.FIELD_TYPE_NULL) {
+					nullBitmaps[column][row >>> 6] |= 1L << row;
+					continue;
+				}
+
+				switch (columnTypes[column]) {
+					case Cursor.FIELD_TYPE_NULL:
+						columnTypes[column] = valueType;
+						columnValues[column] = newColumn(valueType, rowCount);
+						break;
+					case Cursor.FIELD_TYPE_INTEGER:
+						if (valueType != Cursor.FIELD_TYPE_FLOAT) break;
+
+						final long[] longs = (long[]) columnValues[column];
+						final double[] doubles = new double[rowCount];
+						for (int i = 0; i < row; i++) doubles[i] = longs[i];
+
+						columnTypes[column] = Cursor.FIELD_TYPE_FLOAT;
+						columnValues[column] = doubles;
+						break;
+				}
+
+				switch (columnTypes[column]) {
+					case Cursor.FIELD_TYPE_INTEGER:
+						((long[]) columnValues[column])[row] = cursor.getLong(column);
+						break;
+					case Cursor.FIELD_TYPE_FLOAT:
+						((double[]) columnValues[column])[row] = cursor.getDouble(column);
+						break;
+					case Cursor.FIELD_TYPE_BLOB:
+						((byte[][]) columnValues[column])[row] = cursor.getBlob(column);
+						break;
+					default:
+						((String[]) columnValues[column])[row] = cursor.getString(column);
+				}
+			}
+		}
+
+		return new ColumnarResult(columnNames, columnTypes, columnValues, nullBitmaps, rowCount);
+	}
+
+	private static Object newColumn(int columnType, int rowCount) {
+		switch (columnType) {
+			case Cursor.FIELD_TYPE_INTEGER:
+				return new long[rowCount];
+			case Cursor.FIELD_TYPE_FLOAT:
+				return new double[rowCount];
+			case Cursor.FIELD_TYPE_BLOB:
+				return new byte[rowCount][];
+			default:
+				return new String[rowCount];
+		}
+	}
+
+	private ColumnarResult(String[] columnNames, int[] columnTypes, Object[] columnValues, long[][] nullBitmaps, int rowCount) {
+		this.columnNames = columnNames;
+		this.columnTypes = columnTypes;
+		this.columnValues = columnValues;
+		this.nullBitmaps = nullBitmaps;
+		this.rowCount = rowCount;
+	}
+
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	public int getColumnCount() {
+		return columnNames.length;
+	}
+
+	public String getColumnName(int column) {
+		return columnNames[column];
+	}
+
+	public int getColumnIndex(String columnName) {
+		for (int i = 0; i < columnNames.length; i++) {
+			if (columnNames[i].equalsIgnoreCase(columnName)) return i;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Gets the {@link Cursor} field type of the column; {@link Cursor#FIELD_TYPE_NULL} when every value is null.
+	 */
+	public int getColumnType(int column) {
+		return columnTypes[column];
+	}
+
+	public boolean isNull(int row, int column) {
+		return (nullBitmaps[column][row >>> 6] & (1L << row)) != 0;
+	}
+
+	/**
+	 * Gets the values of an integer column. Null values are 0.
+	 */
+	public long[] getLongs(int column) {
+		return getColumn(column, Cursor.FIELD_TYPE_INTEGER, long[].class);
+	}
+
+	/**
+	 * Gets the values of a real column, or of an integer column converted to doubles. Null values are 0.
+	 */
+	public double[] getDoubles(int column) {
+		if (columnTypes[column] != Cursor.FIELD_TYPE_INTEGER)
+			return getColumn(column, Cursor.FIELD_TYPE_FLOAT, double[].class);
+
+		final long[] longs = (long[]) columnValues[column];
+		final double[] doubles = new double[longs.length];
+		for (int i = 0; i < longs.length; i++) doubles[i] = longs[i];
+		return doubles;
+	}
+
+	public String[] getStrings(int column) {
+		return getColumn(column, Cursor.FIELD_TYPE_STRING, String[].class);
+	}
+
+	public byte[][] getBlobs(int column) {
+		return getColumn(column, Cursor.FIELD_TYPE_BLOB, byte[][].class);
+	}
+
+	private <T> T getColumn(int column, int columnType, Class<T> cls) {
+		final int actualType = columnTypes[column];
+		if (actualType == Cursor.FIELD_TYPE_NULL)
+			return cls.cast(newColumn(columnType, rowCount));
+
+		if (actualType != columnType)
+			throw new IllegalStateException("Column \"" + columnNames[column] + "\" is not a " + cls.getComponentType().getSimpleName() + " column.");
+
+		return cls.cast(columnValues[column]);
+	}
+}
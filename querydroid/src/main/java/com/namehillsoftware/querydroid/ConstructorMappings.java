@@ -0,0 +1,249 @@
+package com.namehillsoftware.querydroid;
+
+import android.annotation.TargetApi;
+import android.database.Cursor;
+import android.os.Build;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps rows through the constructor of classes that have no public no-argument constructor, such as immutable
+ * classes, Java records, and Kotlin classes with constructor properties, or whose constructor parameters have no
+ * setter or writable field to map them through instead.
+ */
+class ConstructorMappings {
+
+	private static final String kotlinDefaultConstructorMarker = "kotlin.jvm.internal.DefaultConstructorMarker";
+
+	private static final Map<Class<?>, ConstructorMapping<?>> mappingCache = new ConcurrentHashMap<>();
+
+	private static final ConstructorMapping<?> noMapping = new ConstructorMapping<>(null, null, new String[0]);
+
+	private static final Map<Class<?>, Object> primitiveDefaults = new HashMap<>();
+
+	static {
+		primitiveDefaults.put(Boolean.TYPE, false);
+		primitiveDefaults.put(Byte.TYPE, (byte) 0);
+		primitiveDefaults.put(Character.TYPE, '\0');
+		primitiveDefaults.put(Short.TYPE, (short) 0);
+		primitiveDefaults.put(Integer.TYPE, 0);
+		primitiveDefaults.put(Long.TYPE, 0L);
+		primitiveDefaults.put(Float.TYPE, 0f);
+		primitiveDefaults.put(Double.TYPE, 0d);
+	}
+
+	@SuppressWarnings("unchecked")
+	static <T> ConstructorMapping<T> getMapping(Class<T> cls) {
+		ConstructorMapping<?> constructorMapping = mappingCache.get(cls);
+		if (constructorMapping == null) {
+			constructorMapping = findConstructorMapping(cls);
+			mappingCache.put(cls, constructorMapping);
+		}
+
+		return constructorMapping != noMapping ? (ConstructorMapping<T>) constructorMapping : null;
+	}
+
+	private static ConstructorMapping<?> findConstructorMapping(Class<?> cls) {
+		Constructor<?> mappedConstructor = null;
+		String[] parameterNames = null;
+		for (Constructor<?> constructor : cls.getConstructors()) {
+			if (constructor.isSynthetic()) continue;
+
+			final String[] names = getParameterNames(constructor);
+			if (names == null) continue;
+
+			if (mappedConstructor == null || names.length > parameterNames.length) {
+				mappedConstructor = constructor;
+				parameterNames = names;
+			}
+		}
+
+		if (mappedConstructor == null) return noMapping;
+
+		// Kotlin gives classes whose constructor parameters all have defaults a no-argument constructor too, which
+		// can't be used when the parameters are read-only properties
+		if (hasNoArgumentConstructor(cls) && hasSetters(cls, parameterNames)) return noMapping;
+
+		return new ConstructorMapping<>(mappedConstructor, findKotlinDefaultsConstructor(cls, mappedConstructor), parameterNames);
+	}
+
+	private static boolean hasNoArgumentConstructor(Class<?> cls) {
+		try {
+			cls.getConstructor();
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	private static boolean hasSetters(Class<?> cls, String[] parameterNames) {
+		final HashSet<String> setterNames = new HashSet<>();
+		for (Field field : cls.getFields()) {
+			if (!Modifier.isFinal(field.getModifiers()) && !Modifier.isStatic(field.getModifiers()))
+				setterNames.add(field.getName().toLowerCase(Locale.ROOT));
+		}
+
+		for (Method method : cls.getMethods()) {
+			if (method.getParameterTypes().length == 1 && method.getName().startsWith("set"))
+				setterNames.add(method.getName().substring(3).toLowerCase(Locale.ROOT));
+		}
+
+		for (String parameterName : parameterNames) {
+			if (setterNames.contains(parameterName)) continue;
+			if (parameterName.startsWith("is") && setterNames.contains(parameterName.substring(2))) continue;
+
+			return false;
+		}
+
+		return true;
+	}
+
+	private static String[] getParameterNames(Constructor<?> constructor) {
+		final Annotation[][] parameterAnnotations = constructor.getParameterAnnotations();
+		final String[] compiledNames = Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+			? getCompiledParameterNames(constructor)
+			: null;
+
+		final String[] names = new String[constructor.getParameterTypes().length];
+		for (int i = 0; i < names.length; i++) {
+			String name = null;
+			if (i < parameterAnnotations.length) {
+				for (Annotation annotation : parameterAnnotations[i]) {
+					if (annotation instanceof ColumnName) {
+						name = ((ColumnName) annotation).value();
+						break;
+					}
+				}
+			}
+
+			if (name == null && compiledNames != null) name = compiledNames[i];
+			if (name == null) return null;
+
+			names[i] = name.toLowerCase(Locale.ROOT);
+		}
+
+		return names;
+	}
+
+	@TargetApi(Build.VERSION_CODES.O)
+	private static String[] getCompiledParameterNames(Constructor<?> constructor) {
+		final Parameter[] parameters = constructor.getParameters();
+		final String[] names = new String[parameters.length];
+		for (int i = 0; i < parameters.length; i++)
+			names[i] = parameters[i].isNamePresent() ? parameters[i].getName() : null;
+
+		return names;
+	}
+
+	/**
+	 * Finds the synthetic constructor Kotlin generates for default parameter values, which takes the parameters, then
+	 * a bit mask per 32 parameters of which ones to default, then a marker.
+	 */
+	private static Constructor<?> findKotlinDefaultsConstructor(Class<?> cls, Constructor<?> constructor) {
+		final Class<?>[] parameterTypes = constructor.getParameterTypes();
+		final int maskCount = (parameterTypes.length + 31) / 32;
+		for (Constructor<?> candidate : cls.getDeclaredConstructors()) {
+			if (!candidate.isSynthetic()) continue;
+
+			final Class<?>[] candidateTypes = candidate.getParameterTypes();
+			if (candidateTypes.length != parameterTypes.length + maskCount + 1) continue;
+			if (!candidateTypes[candidateTypes.length - 1].getName().equals(kotlinDefaultConstructorMarker)) continue;
+			if (!Arrays.equals(Arrays.copyOf(candidateTypes, parameterTypes.length), parameterTypes)) continue;
+
+			try {
+				candidate.setAccessible(true);
+			} catch (RuntimeException e) {
+				return null;
+			}
+
+			return candidate;
+		}
+
+		return null;
+	}
+
+	static class ConstructorMapping<T> {
+		private final Constructor<?> constructor;
+		private final Constructor<?> kotlinDefaultsConstructor;
+		private final String[] parameterNames;
+		private final Class<?>[] parameterTypes;
+		private final SqLiteCommand.ReadColumn<?>[] parameterReaders;
+
+		private ConstructorMapping(Constructor<?> constructor, Constructor<?> kotlinDefaultsConstructor, String[] parameterNames) {
+			this.constructor = constructor;
+			this.kotlinDefaultsConstructor = kotlinDefaultsConstructor;
+			this.parameterNames = parameterNames;
+
+			parameterTypes = constructor != null ? constructor.getParameterTypes() : new Class<?>[0];
+			parameterReaders = new SqLiteCommand.ReadColumn<?>[parameterTypes.length];
+			for (int i = 0; i < parameterTypes.length; i++)
+				parameterReaders[i] = SqLiteCommand.getColumnReader(parameterTypes[i]);
+		}
+
+		SqLiteCommand.MapCursor<T> newMapper(Cursor cursor) {
+			final HashMap<String, Integer> columnIndexes = new HashMap<>();
+			for (int i = 0; i < cursor.getColumnCount(); i++)
+				columnIndexes.put(cursor.getColumnName(i).toLowerCase(Locale.ROOT), i);
+
+			final int[] parameterColumns = new int[parameterNames.length];
+			final int[] defaultMasks = new int[(parameterNames.length + 31) / 32];
+			boolean hasDefaults = false;
+			for (int i = 0; i < parameterNames.length; i++) {
+				Integer columnIndex = columnIndexes.get(parameterNames[i]);
+				if (columnIndex == null) columnIndex = columnIndexes.get("is" + parameterNames[i]);
+
+				parameterColumns[i] = columnIndex != null && parameterReaders[i] != null ? columnIndex : -1;
+				if (parameterColumns[i] < 0) {
+					defaultMasks[i / 32] |= 1 << (i % 32);
+					hasDefaults = true;
+				}
+			}
+
+			final Constructor<?> rowConstructor = hasDefaults && kotlinDefaultsConstructor != null
+				? kotlinDefaultsConstructor
+				: constructor;
+			final int argumentCount = rowConstructor.getParameterTypes().length;
+
+			return c -> {
+				final Object[] arguments = new Object[argumentCount];
+				for (int i = 0; i < parameterColumns.length; i++) {
+					final int columnIndex = parameterColumns[i];
+					final Object value = columnIndex > -1 ? parameterReaders[i].read(c, columnIndex) : null;
+					arguments[i] = value != null || !parameterTypes[i].isPrimitive()
+						? value
+						: primitiveDefaults.get(parameterTypes[i]);
+				}
+
+				if (rowConstructor != constructor) {
+					for (int i = 0; i < defaultMasks.length; i++)
+						arguments[parameterColumns.length + i] = defaultMasks[i];
+				}
+
+				return newInstance(rowConstructor, arguments);
+			};
+		}
+
+		@SuppressWarnings("unchecked")
+		private T newInstance(Constructor<?> rowConstructor, Object[] arguments) {
+			try {
+				return (T) rowConstructor.newInstance(arguments);
+			} catch (InstantiationException | IllegalAccessException e) {
+				throw new RuntimeException(e);
+			} catch (InvocationTargetException e) {
+				throw new RuntimeException(e.getCause());
+			}
+		}
+	}
+}
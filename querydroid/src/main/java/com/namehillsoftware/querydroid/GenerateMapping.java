@@ -0,0 +1,14 @@
+package com.namehillsoftware.querydroid;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class for compile time generation of a {@link SqLiteMapping} by the querydroid-processor module.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface GenerateMapping {
+}
@@ -0,0 +1,121 @@
+package com.namehillsoftware.querydroid;
+
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pages through the results of a query by seeking past the last key read, rather than with an offset, so each page
+ * costs the same no matter how deep it is. The key column must be unique and part of the query's results.
+ */
+public final class KeysetPager<T> {
+
+	private static final String lastKeyParameter = "keysetLastKey";
+	private static final String pageSizeParameter = "keysetPageSize";
+
+	private final SqLiteCommand firstPageCommand;
+	private final SqLiteCommand nextPageCommand;
+	private final Class<T> cls;
+	private final String keyColumn;
+	private final int pageSize;
+
+	private Object lastKey;
+	private boolean hasMorePages = true;
+
+	KeysetPager(SQLiteDatabase database, SqLiteCommand command, Class<T> cls, String keyColumn, int pageSize, boolean isDescending) {
+		if (pageSize < 1)
+			throw new IllegalArgumentException("The page size must be greater than zero.");
+
+		this.cls = cls;
+		this.keyColumn = keyColumn;
+		this.pageSize = pageSize;
+
+		final String baseQuery = "SELECT * FROM (" + stripTrailingSemicolons(command.getCommandText()) + ")";
+		final String orderAndLimit = " ORDER BY `" + keyColumn + "`" + (isDescending ? " DESC" : "") + " LIMIT @" + pageSizeParameter;
+
+		firstPageCommand = new SqLiteCommand(database, baseQuery + orderAndLimit);
+		nextPageCommand = new SqLiteCommand(
+			database,
+			baseQuery + " WHERE `" + keyColumn + "` " + (isDescending ? "<" : ">") + " @" + lastKeyParameter + orderAndLimit);
+
+		command.copyParametersTo(firstPageCommand);
+		command.copyParametersTo(nextPageCommand);
+
+		// A split command would page each chunk of its IN list separately, so pages would skip and repeat rows
+		if (nextPageCommand.isSplit())
+			throw new IllegalArgumentException("The query \"" + command.getCommandText() + "\" binds too many parameters to be paged.");
+
+		firstPageCommand.addParameter(pageSizeParameter, pageSize);
+		nextPageCommand.addParameter(pageSizeParameter, pageSize);
+	}
+
+	public boolean hasMorePages() {
+		return hasMorePages;
+	}
+
+	public Object getLastKey() {
+		return lastKey;
+	}
+
+	/**
+	 * Continues paging after the given key, for example one kept from {@link #getLastKey()}.
+	 */
+	public KeysetPager<T> resumeAfter(Object lastKey) {
+		this.lastKey = lastKey;
+		hasMorePages = true;
+		return this;
+	}
+
+	public List<T> nextPage() throws SQLException {
+		if (!hasMorePages) return new ArrayList<>();
+
+		final SqLiteCommand command = lastKey != null
+			? nextPageCommand.addParameter(lastKeyParameter, lastKey)
+			: firstPageCommand;
+
+		try (Cursor cursor = command.getCursorForQuery()) {
+			if (!cursor.moveToFirst()) {
+				hasMorePages = false;
+				return new ArrayList<>();
+			}
+
+			final SqLiteCommand.MapCursor<T> cursorMapper = SqLiteCommand.getCursorMapper(cursor, cls);
+			final int keyColumnIndex = cursor.getColumnIndexOrThrow(keyColumn);
+			final ArrayList<T> page = new ArrayList<>(cursor.getCount());
+			do {
+				page.add(cursorMapper.map(cursor));
+			} while (cursor.moveToNext());
+
+			cursor.moveToLast();
+			lastKey = readKey(cursor, keyColumn, keyColumnIndex);
+			hasMorePages = page.size() == pageSize;
+			return page;
+		}
+	}
+
+	private static String stripTrailingSemicolons(String sql) {
+		int end = sql.length();
+		while (end > 0 && (sql.charAt(end - 1) == ';' || Character.isWhitespace(sql.charAt(end - 1))))
+			--end;
+
+		return sql.substring(0, end);
+	}
+
+	private static Object readKey(Cursor cursor, String keyColumn, int columnIndex) {
+		switch (cursor.getType(columnIndex)) {
+			case Cursor.FIELD_TYPE_INTEGER:
+				return cursor.getLong(columnIndex);
+			case Cursor.FIELD_TYPE_FLOAT:
+				return cursor.getDouble(columnIndex);
+			case Cursor.FIELD_TYPE_BLOB:
+				return cursor.getBlob(columnIndex);
+			case Cursor.FIELD_TYPE_NULL:
+				throw new SQLException("The key column \"" + keyColumn + "\" contains null values, which cannot be paged past.");
+			default:
+				return cursor.getString(columnIndex);
+		}
+	}
+}
@@ -0,0 +1,266 @@
+package com.namehillsoftware.querydroid;
+
+import android.database.Cursor;
+import android.database.CursorWrapper;
+import android.util.LongSparseArray;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Builds parents with their children from one joined result set. Columns starting with the child prefix are mapped to
+ * the child, with the prefix removed, and the rest are mapped to the parent. Parents are deduplicated by their key,
+ * which may be of any type; rows with a null key each get their own parent.
+ */
+class OneToManyMapper<P, C> {
+
+	private final Class<P> parentCls;
+	private final String parentKeyColumn;
+	private final Class<C> childCls;
+	private final String childColumnPrefix;
+	private final ChildrenAccessor childrenAccessor;
+
+	OneToManyMapper(Class<P> parentCls, String parentKeyColumn, Class<C> childCls, String childColumnPrefix, String childrenProperty) {
+		this.parentCls = parentCls;
+		this.parentKeyColumn = parentKeyColumn;
+		this.childCls = childCls;
+		this.childColumnPrefix = childColumnPrefix.toLowerCase(Locale.ROOT);
+		this.childrenAccessor = ChildrenAccessor.find(parentCls, childrenProperty);
+	}
+
+	List<P> map(Cursor cursor) {
+		final ArrayList<P> parents = new ArrayList<>();
+		if (!cursor.moveToFirst()) return parents;
+
+		final String[] columnNames = cursor.getColumnNames();
+		int childColumnCount = 0;
+		for (String columnName : columnNames) {
+			if (columnName.toLowerCase(Locale.ROOT).startsWith(childColumnPrefix)) childColumnCount++;
+		}
+
+		final int[] parentColumns = new int[columnNames.length - childColumnCount];
+		final String[] parentColumnNames = new String[parentColumns.length];
+		final int[] childColumns = new int[childColumnCount];
+		final String[] childColumnNames = new String[childColumnCount];
+		for (int i = 0, p = 0, c = 0; i < columnNames.length; i++) {
+			if (columnNames[i].toLowerCase(Locale.ROOT).startsWith(childColumnPrefix)) {
+				childColumns[c] = i;
+				childColumnNames[c++] = columnNames[i].substring(childColumnPrefix.length());
+			} else {
+				parentColumns[p] = i;
+				parentColumnNames[p++] = columnNames[i];
+			}
+		}
+
+		final int parentKeyIndex = cursor.getColumnIndexOrThrow(parentKeyColumn);
+		final ColumnSubsetCursor parentCursor = new ColumnSubsetCursor(cursor, parentColumns, parentColumnNames);
+		final ColumnSubsetCursor childCursor = new ColumnSubsetCursor(cursor, childColumns, childColumnNames);
+		final SqLiteCommand.MapCursor<P> parentMapper = SqLiteCommand.getCursorMapper(parentCursor, parentCls);
+		final SqLiteCommand.MapCursor<C> childMapper = SqLiteCommand.getCursorMapper(childCursor, childCls);
+
+		final LongSparseArray<P> parentsByIntegerKey = new LongSparseArray<>();
+		final HashMap<Object, P> parentsByOtherKey = new HashMap<>();
+		do {
+			P parent;
+			final int parentKeyType = cursor.getType(parentKeyIndex);
+			if (parentKeyType == Cursor.FIELD_TYPE_INTEGER) {
+				final long parentKey = cursor.getLong(parentKeyIndex);
+				parent = parentsByIntegerKey.get(parentKey);
+				if (parent == null) {
+					parent = parentMapper.map(parentCursor);
+					parentsByIntegerKey.put(parentKey, parent);
+					parents.add(parent);
+				}
+			} else if (parentKeyType != Cursor.FIELD_TYPE_NULL) {
+				final Object parentKey = readKey(cursor, parentKeyIndex, parentKeyType);
+				parent = parentsByOtherKey.get(parentKey);
+				if (parent == null) {
+					parent = parentMapper.map(parentCursor);
+					parentsByOtherKey.put(parentKey, parent);
+					parents.add(parent);
+				}
+			} else {
+				parent = parentMapper.map(parentCursor);
+				parents.add(parent);
+			}
+
+			// A parent without children has only nulls in the child columns of an outer join
+			if (!areAllNull(cursor, childColumns))
+				childrenAccessor.getChildren(parent).add(childMapper.map(childCursor));
+		} while (cursor.moveToNext());
+
+		return parents;
+	}
+
+	private static Object readKey(Cursor cursor, int columnIndex, int type) {
+		switch (type) {
+			case Cursor.FIELD_TYPE_FLOAT:
+				return cursor.getDouble(columnIndex);
+			case Cursor.FIELD_TYPE_BLOB:
+				// Wrapped so that equal blobs are equal keys
+				return ByteBuffer.wrap(cursor.getBlob(columnIndex));
+			default:
+				return cursor.getString(columnIndex);
+		}
+	}
+
+		private static boolean areAllNull(Cursor cursor, int[] columns) {
+		for (int column : columns) {
+			if (!cursor.isNull(column)) return false;
+		}
+
+		return true;
+	}
+
+	private static class ChildrenAccessor {
+		private final Field field;
+		private final Method getter;
+		private final Method setter;
+
+		static ChildrenAccessor find(Class<?> parentCls, String childrenProperty) {
+			final String lowerCaseProperty = childrenProperty.toLowerCase(Locale.ROOT);
+
+			Method getter = null;
+			Method setter = null;
+			for (Method method : parentCls.getMethods()) {
+				if (Modifier.isStatic(method.getModifiers())) continue;
+
+				final String name = method.getName().toLowerCase(Locale.ROOT);
+				if (name.equals("get" + lowerCaseProperty) && method.getParameterTypes().length == 0 && Collection.class.isAssignableFrom(method.getReturnType()))
+					getter = method;
+				else if (name.equals("set" + lowerCaseProperty) && method.getParameterTypes().length == 1 && method.getParameterTypes()[0].isAssignableFrom(ArrayList.class))
+					setter = method;
+			}
+
+			if (getter != null) return new ChildrenAccessor(null, getter, setter);
+
+			for (Field field : parentCls.getFields()) {
+				if (field.getName().toLowerCase(Locale.ROOT).equals(lowerCaseProperty) && Collection.class.isAssignableFrom(field.getType()))
+					return new ChildrenAccessor(field, null, null);
+			}
+
+			throw new IllegalArgumentException("No public collection property \"" + childrenProperty + "\" was found on " + parentCls.getName() + ".");
+		}
+
+		private ChildrenAccessor(Field field, Method getter, Method setter) {
+			this.field = field;
+			this.getter = getter;
+			this.setter = setter;
+		}
+
+		@SuppressWarnings("unchecked")
+		<C> Collection<C> getChildren(Object parent) {
+			try {
+				Collection<C> children = (Collection<C>) (field != null ? field.get(parent) : getter.invoke(parent));
+				if (children != null) return children;
+
+				children = new ArrayList<>();
+				if (field != null) field.set(parent, children);
+				else if (setter != null) setter.invoke(parent, children);
+				else throw new IllegalStateException("The children of " + parent + " are null and can't be set.");
+
+				return children;
+			} catch (IllegalAccessException | InvocationTargetException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	/**
+	 * Shows a subset of the columns of a cursor, under their own names.
+	 */
+	private static class ColumnSubsetCursor extends CursorWrapper {
+		private final int[] columns;
+		private final String[] columnNames;
+
+		ColumnSubsetCursor(Cursor cursor, int[] columns, String[] columnNames) {
+			super(cursor);
+			this.columns = columns;
+			this.columnNames = columnNames;
+		}
+
+		@Override
+		public int getColumnCount() {
+			return columns.length;
+		}
+
+		@Override
+		public String[] getColumnNames() {
+			return columnNames;
+		}
+
+		@Override
+		public String getColumnName(int columnIndex) {
+			return columnNames[columnIndex];
+		}
+
+		@Override
+		public int getColumnIndex(String columnName) {
+			for (int i = 0; i < columnNames.length; i++) {
+				if (columnNames[i].equalsIgnoreCase(columnName)) return i;
+			}
+
+			return -1;
+		}
+
+		@Override
+		public int getColumnIndexOrThrow(String columnName) {
+			final int columnIndex = getColumnIndex(columnName);
+			if (columnIndex < 0) throw new IllegalArgumentException("column '" + columnName + "' does not exist");
+			return columnIndex;
+		}
+
+		@Override
+		public int getType(int columnIndex) {
+			return super.getType(columns[columnIndex]);
+		}
+
+		@Override
+		public boolean isNull(int columnIndex) {
+			return super.isNull(columns[columnIndex]);
+		}
+
+		@Override
+		public String getString(int columnIndex) {
+			return super.getString(columns[columnIndex]);
+		}
+
+		@Override
+		public byte[] getBlob(int columnIndex) {
+			return super.getBlob(columns[columnIndex]);
+		}
+
+		@Override
+		public short getShort(int columnIndex) {
+			return super.getShort(columns[columnIndex]);
+		}
+
+		@Override
+		public int getInt(int columnIndex) {
+			return super.getInt(columns[columnIndex]);
+		}
+
+		@Override
+		public long getLong(int columnIndex) {
+			return super.getLong(columns[columnIndex]);
+		}
+
+		@Override
+		public float getFloat(int columnIndex) {
+			return super.getFloat(columns[columnIndex]);
+		}
+
+		@Override
+		public double getDouble(int columnIndex) {
+			return super.getDouble(columns[columnIndex]);
+		}
+	}
+}
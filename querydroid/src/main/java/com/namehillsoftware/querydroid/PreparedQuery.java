@@ -0,0 +1,376 @@
+package com.namehillsoftware.querydroid;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import com.namehillsoftware.lazyj.AbstractSynchronousLazy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * SQL with its named parameters resolved to positional slots. Prepared queries are immutable and can be shared across
+ * threads; each execution gets its own {@link SqLiteCommand} from {@link #newCommand(SQLiteDatabase)}.
+ */
+public final class PreparedQuery {
+
+	enum CommandType {
+		QUERY,
+		INSERT,
+		UPDATE_OR_DELETE,
+	}
+
+	public static PreparedQuery prepare(String sqlQuery) {
+		return QueryCache.getPreparedQuery(sqlQuery);
+	}
+
+	private static final Set<String> unsplittableKeywords = new HashSet<>(Arrays.asList(
+		"or", "order", "limit", "offset", "distinct", "group", "having", "union", "intersect", "except", "over", "window"));
+
+	private static final Set<String> sqlKeywords = new HashSet<>(Arrays.asList(
+		"not", "and", "where", "case", "when", "then", "else", "end", "is", "exists", "select", "set", "from", "null"));
+
+	private static final Set<String> aggregateFunctions = new HashSet<>(Arrays.asList(
+		"count", "sum", "avg", "min", "max", "total", "group_concat", "string_agg"));
+
+	final String commandText;
+	final String sqlQuery;
+	final CommandType commandType;
+	final int[] placeholderSlots;
+	private final int[] placeholderOffsets;
+	private final String[] slotNames;
+	private final HashMap<String, Integer> slots = new HashMap<>();
+	private final HashMap<String, String> expandedSqlQueries = new HashMap<>();
+	final ConcurrentHashMap<Class<?>, SqLiteAssistants.ParameterPlan> parameterPlans = new ConcurrentHashMap<>();
+	private final long parseNanos;
+	private final AtomicBoolean isParseClaimed = new AtomicBoolean();
+	private final AbstractSynchronousLazy<boolean[]> splittableSlots = new AbstractSynchronousLazy<>() {
+		@Override
+		protected boolean[] create() {
+			return findSplittableSlots();
+		}
+	};
+	private final AbstractSynchronousLazy<TableUsage> tableUsage = new AbstractSynchronousLazy<>() {
+		@Override
+		protected TableUsage create() {
+			return new TableUsage(sqlQuery);
+		}
+	};
+
+	PreparedQuery(String commandText, String sqlQuery, String[] placeholderNames, int[] placeholderOffsets, long parseNanos) {
+		this.commandText = commandText;
+		this.parseNanos = parseNanos;
+		this.sqlQuery = sqlQuery;
+		this.placeholderOffsets = placeholderOffsets;
+
+		placeholderSlots = new int[placeholderNames.length];
+		for (int i = 0; i < placeholderNames.length; i++) {
+			final String placeholderName = placeholderNames[i];
+			Integer slot = slots.get(placeholderName);
+			if (slot == null) {
+				slot = slots.size();
+				slots.put(placeholderName, slot);
+			}
+
+			placeholderSlots[i] = slot;
+		}
+
+		slotNames = new String[slots.size()];
+		for (HashMap.Entry<String, Integer> slot : slots.entrySet())
+			slotNames[slot.getValue()] = slot.getKey();
+
+		final String sqlQueryType = sqlQuery.length() < 3 ? sqlQuery : sqlQuery.substring(0, 3).toLowerCase(Locale.ROOT);
+		if (sqlQueryType.equals("upd") || sqlQueryType.equals("del"))
+			commandType = CommandType.UPDATE_OR_DELETE;
+		else if (sqlQueryType.equals("ins"))
+			commandType = CommandType.INSERT;
+		else
+			commandType = CommandType.QUERY;
+	}
+
+	/**
+	 * Gets the SQL with each placeholder repeated {@code slotLengths[slot]} times, separated by commas. Slots with a
+	 * negative length keep their single placeholder.
+	 */
+	String getExpandedSqlQuery(int[] slotLengths) {
+		final String expansionKey = Arrays.toString(slotLengths);
+		synchronized (expandedSqlQueries) {
+			final String expandedSqlQuery = expandedSqlQueries.get(expansionKey);
+			if (expandedSqlQuery != null) return expandedSqlQuery;
+		}
+
+		final StringBuilder sqlQueryBuilder = new StringBuilder(sqlQuery.length() + 2 * placeholderOffsets.length);
+		int sqlOffset = 0;
+		for (int i = 0; i < placeholderOffsets.length; i++) {
+			final int placeholderOffset = placeholderOffsets[i];
+			sqlQueryBuilder.append(sqlQuery, sqlOffset, placeholderOffset);
+			sqlOffset = placeholderOffset + 1;
+
+			final int slotLength = slotLengths[placeholderSlots[i]];
+			if (slotLength < 0) {
+				sqlQueryBuilder.append('?');
+				continue;
+			}
+
+			for (int p = 0; p < slotLength; p++) {
+				if (p > 0) sqlQueryBuilder.append(',');
+				sqlQueryBuilder.append('?');
+			}
+		}
+		sqlQueryBuilder.append(sqlQuery, sqlOffset, sqlQuery.length());
+
+		final String expandedSqlQuery = sqlQueryBuilder.toString();
+		synchronized (expandedSqlQueries) {
+			expandedSqlQueries.put(expansionKey, expandedSqlQuery);
+		}
+		return expandedSqlQuery;
+	}
+
+	/**
+	 * Gets every identifier in the query, which includes each table that it reads.
+	 */
+	Set<String> getReferencedNames() {
+		return tableUsage.getObject().referencedNames;
+	}
+
+	/**
+	 * Gets the table that the query writes to, or null if it is not a query, or if the table could not be determined.
+	 */
+	String getWrittenTable() {
+		return tableUsage.getObject().writtenTable;
+	}
+
+	boolean isSelect() {
+		return tableUsage.getObject().isSelect;
+	}
+
+	/**
+	 * Whether running the query once per chunk of the slot's values changes or reads the same rows as running it once
+	 * with every value. This holds for a SELECT, UPDATE, or DELETE that uses the slot once, as a plain {@code IN} list
+	 * filtering a column in its WHERE clause, and has nothing that works across the rows of a statement, or that could
+	 * match a row outside of the list.
+	 */
+	boolean canSplit(int slot) {
+		return splittableSlots.getObject()[slot];
+	}
+
+	private boolean[] findSplittableSlots() {
+		final boolean[] splittableSlots = new boolean[slotNames.length];
+
+		final ArrayList<String> tokens = new ArrayList<>();
+		final int length = sqlQuery.length();
+		for (int i = 0; i < length; i++) {
+			final char queryChar = sqlQuery.charAt(i);
+			if (queryChar == '\'' || queryChar == '"' || queryChar == '`') {
+				i = sqlQuery.indexOf(queryChar, i + 1);
+				if (i < 0) break;
+				tokens.add("'");
+				continue;
+			}
+
+			if (Character.isWhitespace(queryChar)) continue;
+
+			if (!Character.isLetterOrDigit(queryChar) && queryChar != '_') {
+				tokens.add(String.valueOf(queryChar));
+				continue;
+			}
+
+			int end = i;
+			while (end < length && (Character.isLetterOrDigit(sqlQuery.charAt(end)) || sqlQuery.charAt(end) == '_'))
+				end++;
+
+			tokens.add(sqlQuery.substring(i, end).toLowerCase(Locale.ROOT));
+			i = end - 1;
+		}
+
+		if (tokens.isEmpty()) return splittableSlots;
+
+		final String firstToken = tokens.get(0);
+		if (!firstToken.equals("select") && !firstToken.equals("update") && !firstToken.equals("delete"))
+			return splittableSlots;
+
+		for (int i = 0; i < tokens.size(); i++) {
+			final String token = tokens.get(i);
+			if (unsplittableKeywords.contains(token)) return splittableSlots;
+
+			final boolean isCall = i + 1 < tokens.size() && tokens.get(i + 1).equals("(");
+			if (isCall && aggregateFunctions.contains(token)) return splittableSlots;
+		}
+
+		final int[] depths = new int[tokens.size()];
+		int depth = 0;
+		for (int i = 0; i < depths.length; i++) {
+			final String token = tokens.get(i);
+			if (token.equals(")")) --depth;
+			depths[i] = depth;
+			if (token.equals("(")) ++depth;
+		}
+
+		final int[] slotUsages = new int[slotNames.length];
+		for (int slot : placeholderSlots) ++slotUsages[slot];
+
+		int placeholder = 0;
+		for (int i = 0; i < tokens.size(); i++) {
+			if (!tokens.get(i).equals("?") || placeholder >= placeholderSlots.length) continue;
+
+			final int slot = placeholderSlots[placeholder++];
+			splittableSlots[slot] = slotUsages[slot] == 1 && isFilteringConjunct(tokens, depths, i);
+		}
+
+		return splittableSlots;
+	}
+
+	/**
+	 * Whether the placeholder is the only value of a {@code column IN (?)} that is a top-level condition of the
+	 * statement's WHERE clause, joined to the others with AND. In any other position, such as under NOT, in a
+	 * comparison, or in the selected or SET columns, a chunk would read or change rows belonging to the other chunks.
+	 */
+	private static boolean isFilteringConjunct(ArrayList<String> tokens, int[] depths, int placeholderIndex) {
+		final int size = tokens.size();
+		final int i = placeholderIndex;
+		if (i < 3 || i + 1 >= size
+			|| !tokens.get(i - 1).equals("(") || !tokens.get(i - 2).equals("in") || !tokens.get(i + 1).equals(")"))
+			return false;
+
+		int columnIndex = i - 3;
+		if (!isIdentifier(tokens.get(columnIndex))) return false;
+		if (columnIndex >= 2 && tokens.get(columnIndex - 1).equals(".")) {
+			columnIndex -= 2;
+			if (!isIdentifier(tokens.get(columnIndex))) return false;
+		}
+
+		if (columnIndex < 1) return false;
+
+		int conditionStart = columnIndex - 1;
+		final boolean isWrapped = tokens.get(conditionStart).equals("(");
+		if (isWrapped) {
+			if (conditionStart < 1) return false;
+			--conditionStart;
+		}
+
+		if (depths[conditionStart] != 0) return false;
+
+		final String joiningToken = tokens.get(conditionStart);
+		if (joiningToken.equals("and")) {
+			// The AND must join conditions of the WHERE clause, rather than a join's ON clause or the range of a BETWEEN
+			boolean isInWhereClause = false;
+			boolean isPastCondition = false;
+			for (int k = conditionStart - 1; k >= 0 && !isInWhereClause; k--) {
+				if (depths[k] != 0) continue;
+
+				final String token = tokens.get(k);
+				if (token.equals("between") && !isPastCondition) return false;
+				if (token.equals("on") || token.equals("join") || token.equals("from") || token.equals("set")) return false;
+
+				isPastCondition |= token.equals("and");
+				isInWhereClause = token.equals("where");
+			}
+
+			if (!isInWhereClause) return false;
+		} else if (!joiningToken.equals("where")) {
+			return false;
+		}
+
+		int next = i + 2;
+		if (isWrapped) {
+			if (next >= size || !tokens.get(next).equals(")")) return false;
+			++next;
+		}
+
+		return next >= size || tokens.get(next).equals(";") || tokens.get(next).equals("and");
+	}
+
+	private static boolean isIdentifier(String token) {
+		final char firstChar = token.charAt(0);
+		return (Character.isLetter(firstChar) || firstChar == '_') && !sqlKeywords.contains(token);
+	}
+
+	public SqLiteCommand newCommand(SQLiteDatabase database) {
+		return new SqLiteCommand(database, this);
+	}
+
+	public String getSqlQuery() {
+		return sqlQuery;
+	}
+
+	public int getSlotCount() {
+		return slotNames.length;
+	}
+
+	public int getSlot(String parameter) {
+		final Integer slot = slots.get(parameter);
+		return slot != null ? slot : -1;
+	}
+
+	public String getSlotName(int slot) {
+		return slotNames[slot];
+	}
+
+	/**
+	 * @return the time spent parsing the query for the first caller, and -1 for every later caller
+	 */
+	long claimParseNanos() {
+		return !isParseClaimed.get() && isParseClaimed.compareAndSet(false, true) ? parseNanos : -1;
+	}
+
+	private static class TableUsage {
+		final Set<String> referencedNames = new HashSet<>();
+		final boolean isSelect;
+		final String writtenTable;
+
+		TableUsage(String sqlQuery) {
+			final ArrayList<String> tokens = new ArrayList<>();
+			final int length = sqlQuery.length();
+			for (int i = 0; i < length; i++) {
+				final char queryChar = sqlQuery.charAt(i);
+				if (queryChar == '\'') {
+					i = sqlQuery.indexOf('\'', i + 1);
+					if (i < 0) break;
+					continue;
+				}
+
+				if (!Character.isLetterOrDigit(queryChar) && queryChar != '_') continue;
+
+				int end = i;
+				while (end < length && (Character.isLetterOrDigit(sqlQuery.charAt(end)) || sqlQuery.charAt(end) == '_'))
+					end++;
+
+				tokens.add(sqlQuery.substring(i, end).toLowerCase(Locale.ROOT));
+				i = end - 1;
+			}
+
+			referencedNames.addAll(tokens);
+
+			final String firstToken = tokens.isEmpty() ? "" : tokens.get(0);
+			isSelect = firstToken.equals("select");
+
+			int targetIndex = -1;
+			switch (firstToken) {
+				case "insert":
+				case "replace":
+					targetIndex = tokens.indexOf("into") + 1;
+					break;
+				case "update":
+					targetIndex = tokens.size() > 1 && tokens.get(1).equals("or") ? 3 : 1;
+					break;
+				case "delete":
+					targetIndex = tokens.indexOf("from") + 1;
+					break;
+			}
+
+			if (targetIndex > 0 && targetIndex < tokens.size()) {
+				String target = tokens.get(targetIndex);
+				if ((target.equals("main") || target.equals("temp")) && targetIndex + 1 < tokens.size())
+					target = tokens.get(targetIndex + 1);
+				writtenTable = target;
+			} else {
+				writtenTable = null;
+			}
+		}
+	}
+}
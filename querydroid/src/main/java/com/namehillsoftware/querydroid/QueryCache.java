@@ -0,0 +1,164 @@
+package com.namehillsoftware.querydroid;
+
+import com.namehillsoftware.lazyj.AbstractSynchronousLazy;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache of {@link PreparedQuery} instances, keyed by SQL text. Lookups of cached queries don't lock; each
+ * entry records when it was added and last used, and once the cache is full, a miss evicts the entry that was least
+ * recently used (or first added), found by scanning the entries.
+ */
+public final class QueryCache {
+
+	public enum EvictionPolicy {
+		LEAST_RECENTLY_USED,
+		FIRST_IN_FIRST_OUT,
+	}
+
+	private static final int defaultCapacity = 512;
+
+	private static final ConcurrentHashMap<String, ParsedQuery> queryCache = new ConcurrentHashMap<>();
+	private static final AtomicLong hits = new AtomicLong();
+	private static final AtomicLong misses = new AtomicLong();
+	private static final AtomicLong evictions = new AtomicLong();
+
+	private static volatile int capacity = defaultCapacity;
+	private static volatile EvictionPolicy evictionPolicy = EvictionPolicy.LEAST_RECENTLY_USED;
+
+	private QueryCache() {}
+
+	public static synchronized void setCapacity(int capacity) {
+		if (capacity < 1) throw new IllegalArgumentException("capacity must be positive.");
+
+		QueryCache.capacity = capacity;
+		evictOverflow(null);
+	}
+
+	public static int getCapacity() {
+		return capacity;
+	}
+
+	public static void setEvictionPolicy(EvictionPolicy evictionPolicy) {
+		QueryCache.evictionPolicy = evictionPolicy;
+	}
+
+	public static EvictionPolicy getEvictionPolicy() {
+		return evictionPolicy;
+	}
+
+	public static CacheStatistics getStatistics() {
+		return new CacheStatistics(hits.get(), misses.get(), evictions.get(), queryCache.size());
+	}
+
+	public static void clear() {
+		queryCache.clear();
+	}
+
+	static PreparedQuery getPreparedQuery(String sqlQuery) {
+		sqlQuery = sqlQuery.trim();
+
+		ParsedQuery parsedQuery = queryCache.get(sqlQuery);
+		if (parsedQuery == null) {
+			final ParsedQuery newParsedQuery = new ParsedQuery(sqlQuery);
+			parsedQuery = queryCache.putIfAbsent(sqlQuery, newParsedQuery);
+			if (parsedQuery == null) {
+				misses.incrementAndGet();
+				if (queryCache.size() > capacity) evictOverflow(newParsedQuery);
+
+				// Parsed outside of any lock, concurrent callers for the same query wait on the same lazy value.
+				return newParsedQuery.getObject();
+			}
+		}
+
+		hits.incrementAndGet();
+		parsedQuery.lastUsedTime = System.nanoTime();
+		return parsedQuery.getObject();
+	}
+
+	/**
+	 * Evicts the least recently used or first added entries until the cache is within its capacity, keeping the entry
+	 * that was just added.
+	 */
+	private static synchronized void evictOverflow(ParsedQuery addedQuery) {
+		final boolean isLeastRecentlyUsed = evictionPolicy == EvictionPolicy.LEAST_RECENTLY_USED;
+		while (queryCache.size() > capacity) {
+			Map.Entry<String, ParsedQuery> oldestEntry = null;
+			long oldestTime = Long.MAX_VALUE;
+			for (Map.Entry<String, ParsedQuery> entry : queryCache.entrySet()) {
+				final ParsedQuery parsedQuery = entry.getValue();
+				if (parsedQuery == addedQuery) continue;
+
+				final long time = isLeastRecentlyUsed ? parsedQuery.lastUsedTime : parsedQuery.addedTime;
+				if (oldestEntry == null || time - oldestTime < 0) {
+					oldestEntry = entry;
+					oldestTime = time;
+				}
+			}
+
+			if (oldestEntry == null) return;
+
+			if (queryCache.remove(oldestEntry.getKey(), oldestEntry.getValue()))
+				evictions.incrementAndGet();
+		}
+	}
+
+	private static class ParsedQuery extends AbstractSynchronousLazy<PreparedQuery> {
+
+		private final String sqlQuery;
+		private final long addedTime = System.nanoTime();
+		private volatile long lastUsedTime = addedTime;
+
+		private ParsedQuery(String sqlQuery) {
+			this.sqlQuery = sqlQuery;
+		}
+
+		@Override
+		protected PreparedQuery create() {
+			final long parseStartTime = System.nanoTime();
+			final ArrayList<String> sqlParameters = new ArrayList<>();
+			final ArrayList<Integer> placeholderOffsets = new ArrayList<>();
+			final StringBuilder sqlQueryBuilder = new StringBuilder(sqlQuery);
+			int paramIndex;
+
+			for (int i = 0; i < sqlQueryBuilder.length(); i++) {
+				final char queryChar = sqlQueryBuilder.charAt(i);
+
+				if (queryChar == '\'') {
+					i = sqlQueryBuilder.indexOf("'", ++i);
+
+					if (i < 0) break;
+
+					continue;
+				}
+
+				if (queryChar != '@') continue;
+
+				paramIndex = i;
+				final StringBuilder paramStringBuilder = new StringBuilder();
+				while (++paramIndex < sqlQueryBuilder.length()) {
+					final char paramChar = sqlQueryBuilder.charAt(paramIndex);
+
+					// A parameter needs to look like a Java identifier
+					if (paramIndex == i + 1 && !Character.isJavaIdentifierStart(paramChar)) break;
+					if (!Character.isJavaIdentifierPart(paramChar)) break;
+
+					paramStringBuilder.append(paramChar);
+				}
+
+				sqlParameters.add(paramStringBuilder.toString());
+				placeholderOffsets.add(i);
+				sqlQueryBuilder.replace(i, paramIndex, "?");
+			}
+
+			final int[] offsets = new int[placeholderOffsets.size()];
+			for (int i = 0; i < offsets.length; i++)
+				offsets[i] = placeholderOffsets.get(i);
+
+			return new PreparedQuery(sqlQuery, sqlQueryBuilder.toString(), sqlParameters.toArray(new String[0]), offsets, System.nanoTime() - parseStartTime);
+		}
+	}
+}
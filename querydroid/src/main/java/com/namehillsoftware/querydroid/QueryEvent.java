@@ -0,0 +1,88 @@
+package com.namehillsoftware.querydroid;
+
+public final class QueryEvent {
+
+	public enum Operation {
+		FETCH,
+		FETCH_FIRST,
+		EXECUTE,
+	}
+
+	private final String sql;
+	private final Operation operation;
+	private final long parseNanos;
+	private final boolean isParseCacheHit;
+	private final long executeNanos;
+	private final long mappingNanos;
+	private final long rowCount;
+
+	QueryEvent(String sql, Operation operation, long parseNanos, boolean isParseCacheHit, long executeNanos, long mappingNanos, long rowCount) {
+		this.sql = sql;
+		this.operation = operation;
+		this.parseNanos = parseNanos;
+		this.isParseCacheHit = isParseCacheHit;
+		this.executeNanos = executeNanos;
+		this.mappingNanos = mappingNanos;
+		this.rowCount = rowCount;
+	}
+
+	/**
+	 * @return the query as it was written, with its named parameters, so that every execution of a query shares it
+	 */
+	public String getSql() {
+		return sql;
+	}
+
+	public Operation getOperation() {
+		return operation;
+	}
+
+	/**
+	 * @return the time spent parsing the query, which is 0 when the parsed query was already cached
+	 */
+	public long getParseNanos() {
+		return parseNanos;
+	}
+
+	public boolean isParseCacheHit() {
+		return isParseCacheHit;
+	}
+
+	/**
+	 * @return the time spent compiling and running the statement, up to the first row of a fetch
+	 */
+	public long getExecuteNanos() {
+		return executeNanos;
+	}
+
+	/**
+	 * @return the time spent reading and mapping rows after the first, including reading further cursor windows
+	 */
+	public long getMappingNanos() {
+		return mappingNanos;
+	}
+
+	/**
+	 * @return the rows fetched, or the rows inserted, updated, or deleted
+	 */
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	public long getTotalNanos() {
+		return parseNanos + executeNanos + mappingNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "QueryEvent{" +
+			"sql='" + sql + '\'' +
+			", operation=" + operation +
+			", parseNanos=" + parseNanos +
+			", isParseCacheHit=" + isParseCacheHit +
+			", executeNanos=" + executeNanos +
+			", mappingNanos=" + mappingNanos +
+			", rowCount=" + rowCount +
+			'}';
+	}
+}
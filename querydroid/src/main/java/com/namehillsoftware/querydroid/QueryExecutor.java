@@ -0,0 +1,96 @@
+package com.namehillsoftware.querydroid;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs asynchronous commands with a bounded number of concurrent readers and a single writer lane, which matches how
+ * SQLite allows concurrent reads in WAL mode while serializing writes.
+ */
+public final class QueryExecutor {
+
+	private static final int defaultReaderCount = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+	private static volatile QueryExecutor defaultExecutor;
+
+	public static QueryExecutor getDefault() {
+		QueryExecutor executor = defaultExecutor;
+		if (executor != null) return executor;
+
+		synchronized (QueryExecutor.class) {
+			if (defaultExecutor == null)
+				defaultExecutor = new QueryExecutor(defaultReaderCount);
+
+			return defaultExecutor;
+		}
+	}
+
+	public static void setDefault(QueryExecutor executor) {
+		defaultExecutor = executor;
+	}
+
+	private final Executor readExecutor;
+	private final Executor writeExecutor;
+
+	public QueryExecutor(int maxReaders) {
+		if (maxReaders < 1)
+			throw new IllegalArgumentException("There must be at least one reader.");
+
+		readExecutor = newLane("querydroid-reader-", maxReaders);
+		writeExecutor = newLane("querydroid-writer-", 1);
+	}
+
+	public QueryExecutor(Executor readExecutor, Executor writeExecutor) {
+		this.readExecutor = readExecutor;
+		this.writeExecutor = writeExecutor;
+	}
+
+	public Executor getReadExecutor() {
+		return readExecutor;
+	}
+
+	public Executor getWriteExecutor() {
+		return writeExecutor;
+	}
+
+	/**
+	 * Stops the lanes created by this executor once their queued commands finish. Executors passed in are left alone.
+	 */
+	public void shutdown() {
+		if (readExecutor instanceof QueryLane) ((QueryLane) readExecutor).shutdown();
+		if (writeExecutor instanceof QueryLane) ((QueryLane) writeExecutor).shutdown();
+	}
+
+	private static ExecutorService newLane(String threadPrefix, int threads) {
+		final QueryLane lane = new QueryLane(threads, new LaneThreadFactory(threadPrefix));
+		lane.allowCoreThreadTimeOut(true);
+		return lane;
+	}
+
+	private static class QueryLane extends ThreadPoolExecutor {
+		QueryLane(int threads, ThreadFactory threadFactory) {
+			super(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+		}
+	}
+
+	private static class LaneThreadFactory implements ThreadFactory {
+		private final AtomicInteger threadNumber = new AtomicInteger();
+		private final String threadPrefix;
+
+		LaneThreadFactory(String threadPrefix) {
+			this.threadPrefix = threadPrefix;
+		}
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			final Thread thread = new Thread(runnable, threadPrefix + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,9 @@
+package com.namehillsoftware.querydroid;
+
+/**
+ * Receives an event after each fetch and execute, once registered with {@link QueryListeners}. Listeners are called on
+ * the thread that ran the query, so they should return quickly.
+ */
+public interface QueryListener {
+	void onQueryCompleted(QueryEvent event);
+}
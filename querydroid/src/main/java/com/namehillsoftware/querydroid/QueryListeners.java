@@ -0,0 +1,91 @@
+package com.namehillsoftware.querydroid;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Registers {@link QueryListener}s for every database or for a single database. Queries aren't timed while no listener
+ * is registered.
+ */
+public final class QueryListeners {
+
+	private static final QueryListener[] noListeners = new QueryListener[0];
+
+	private static final Map<SQLiteDatabase, QueryListener[]> databaseListeners = new WeakHashMap<>();
+	private static volatile QueryListener[] globalListeners = noListeners;
+	private static volatile boolean isEnabled;
+
+	private QueryListeners() {}
+
+	public static synchronized void add(QueryListener listener) {
+		globalListeners = withListener(globalListeners, listener);
+		isEnabled = true;
+	}
+
+	public static synchronized void remove(QueryListener listener) {
+		globalListeners = withoutListener(globalListeners, listener);
+		updateIsEnabled();
+	}
+
+	public static synchronized void add(SQLiteDatabase database, QueryListener listener) {
+		final QueryListener[] listeners = databaseListeners.get(database);
+		databaseListeners.put(database, withListener(listeners != null ? listeners : noListeners, listener));
+		isEnabled = true;
+	}
+
+	public static synchronized void remove(SQLiteDatabase database, QueryListener listener) {
+		final QueryListener[] listeners = databaseListeners.get(database);
+		if (listeners == null) return;
+
+		final QueryListener[] remainingListeners = withoutListener(listeners, listener);
+		if (remainingListeners.length > 0) databaseListeners.put(database, remainingListeners);
+		else databaseListeners.remove(database);
+
+		updateIsEnabled();
+	}
+
+	static boolean isEnabled() {
+		return isEnabled;
+	}
+
+	static void onQueryCompleted(SQLiteDatabase database, QueryEvent event) {
+		for (QueryListener listener : globalListeners)
+			listener.onQueryCompleted(event);
+
+		final QueryListener[] listeners;
+		synchronized (QueryListeners.class) {
+			listeners = databaseListeners.isEmpty() ? null : databaseListeners.get(database);
+		}
+
+		if (listeners == null) return;
+
+		for (QueryListener listener : listeners)
+			listener.onQueryCompleted(event);
+	}
+
+	private static void updateIsEnabled() {
+		isEnabled = globalListeners.length > 0 || !databaseListeners.isEmpty();
+	}
+
+	private static QueryListener[] withListener(QueryListener[] listeners, QueryListener listener) {
+		final QueryListener[] newListeners = Arrays.copyOf(listeners, listeners.length + 1);
+		newListeners[listeners.length] = listener;
+		return newListeners;
+	}
+
+	private static QueryListener[] withoutListener(QueryListener[] listeners, QueryListener listener) {
+		for (int i = 0; i < listeners.length; i++) {
+			if (listeners[i] != listener) continue;
+
+			final QueryListener[] newListeners = new QueryListener[listeners.length - 1];
+			System.arraycopy(listeners, 0, newListeners, 0, i);
+			System.arraycopy(listeners, i + 1, newListeners, i, newListeners.length - i);
+			return newListeners;
+		}
+
+		return listeners;
+	}
+}
@@ -0,0 +1,200 @@
+package com.namehillsoftware.querydroid;
+
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.LongSparseArray;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A unit of work over one database. Rows fetched through the session are kept in an identity map keyed by class and
+ * id, so a row read again returns the instance already mapped instead of mapping a new one. Inserts and updates are
+ * held until {@link #flush()}, which writes them all in one transaction.
+ *
+ * An instance is only reused for rows that read no columns beyond the ones it was mapped from. When a query reads more
+ * columns of a row than the instance already in the map, for example a {@code SELECT *} after a {@code SELECT id, name},
+ * a new instance is mapped from the wider row and replaces the old one in the map.
+ *
+ * Sessions are meant to be short-lived and used from a single thread.
+ */
+public final class QuerySession {
+
+	private final HashMap<Class<?>, LongSparseArray<MappedInstance>> identityMap = new HashMap<>();
+	private final ArrayList<PendingWrite> pendingWrites = new ArrayList<>();
+	private final SQLiteDatabase database;
+
+	public QuerySession(SQLiteDatabase database) {
+		this.database = database;
+	}
+
+	public SqLiteCommand mapSql(String sqlQuery) {
+		return new SqLiteCommand(database, sqlQuery);
+	}
+
+	public <T> List<T> fetch(SqLiteCommand command, Class<T> cls) throws SQLException {
+		try (Cursor cursor = command.getCursorForQuery()) {
+			if (!cursor.moveToFirst()) return new ArrayList<>();
+
+			final RowReader<T> rowReader = new RowReader<>(cursor, cls);
+			final ArrayList<T> returnObjects = new ArrayList<>(cursor.getCount());
+			do {
+				returnObjects.add(rowReader.read(cursor));
+			} while (cursor.moveToNext());
+
+			return returnObjects;
+		}
+	}
+
+	public <T> T fetchFirst(SqLiteCommand command, Class<T> cls) throws SQLException {
+		try (Cursor cursor = command.getCursorForQuery()) {
+			if (!cursor.moveToFirst() || cursor.getCount() == 0) return null;
+
+			return new RowReader<>(cursor, cls).read(cursor);
+		}
+	}
+
+	/**
+	 * Gets the instance of the row with the given id, if the session has already read or inserted it.
+	 */
+	public <T> T get(Class<T> cls, long id) {
+		final LongSparseArray<MappedInstance> instances = identityMap.get(cls);
+		final MappedInstance mappedInstance = instances != null ? instances.get(id) : null;
+		return mappedInstance != null ? cls.cast(mappedInstance.instance) : null;
+	}
+
+	public <T> QuerySession insertValue(String table, T value) {
+		pendingWrites.add(new PendingWrite(table, value, true));
+		return this;
+	}
+
+	public <T> QuerySession updateValue(String table, T value) {
+		pendingWrites.add(new PendingWrite(table, value, false));
+		return this;
+	}
+
+	/**
+	 * Writes the pending inserts and updates, in the order they were added, in one transaction. Once the transaction
+	 * commits, inserted values get their generated ids and join the identity map. If a write fails, the transaction is
+	 * rolled back, no ids are set, and the pending writes are kept.
+	 *
+	 * @return the result of each write, in order
+	 */
+	public long[] flush() throws SQLException {
+		final long[] results = new long[pendingWrites.size()];
+
+		database.beginTransaction();
+		try {
+			for (int i = 0; i < results.length; i++) {
+				final PendingWrite pendingWrite = pendingWrites.get(i);
+				results[i] = pendingWrite.isInsert
+					? SqLiteAssistants.insertValue(database, pendingWrite.table, pendingWrite.value)
+					: SqLiteAssistants.updateValue(database, pendingWrite.table, pendingWrite.value);
+			}
+
+			database.setTransactionSuccessful();
+		} finally {
+			database.endTransaction();
+			if (!database.inTransaction()) ResultCache.invalidateTransactionWrites();
+		}
+
+		for (int i = 0; i < results.length; i++) {
+			final PendingWrite pendingWrite = pendingWrites.get(i);
+			if (!pendingWrite.isInsert || results[i] < 0) continue;
+
+			SqLiteCommand.setGeneratedId(pendingWrite.value, results[i]);
+			getInstances(pendingWrite.value.getClass()).put(results[i], new MappedInstance(pendingWrite.value, null));
+		}
+
+		pendingWrites.clear();
+		return results;
+	}
+
+	/**
+	 * Forgets the instances read so far and drops any pending writes.
+	 */
+	public void clear() {
+		identityMap.clear();
+		pendingWrites.clear();
+	}
+
+	private LongSparseArray<MappedInstance> getInstances(Class<?> cls) {
+		LongSparseArray<MappedInstance> instances = identityMap.get(cls);
+		if (instances == null) {
+			instances = new LongSparseArray<>();
+			identityMap.put(cls, instances);
+		}
+
+		return instances;
+	}
+
+	private static boolean isValueType(Class<?> cls) {
+		return cls.isPrimitive()
+			|| cls.isEnum()
+			|| cls == String.class
+			|| cls == byte[].class
+			|| cls == Boolean.class
+			|| Number.class.isAssignableFrom(cls);
+	}
+
+	private class RowReader<T> {
+		private final SqLiteCommand.MapCursor<T> cursorMapper;
+		private final Class<T> cls;
+		private final LongSparseArray<MappedInstance> instances;
+		private final int idColumnIndex;
+		private final HashSet<String> columns;
+
+		RowReader(Cursor cursor, Class<T> cls) {
+			this.cls = cls;
+			cursorMapper = SqLiteCommand.getCursorMapper(cursor, cls);
+			idColumnIndex = isValueType(cls) ? -1 : cursor.getColumnIndex("id");
+			instances = idColumnIndex > -1 ? getInstances(cls) : null;
+
+			columns = new HashSet<>();
+			for (String column : cursor.getColumnNames()) columns.add(column.toLowerCase(Locale.ROOT));
+		}
+
+		T read(Cursor cursor) {
+			if (instances == null || cursor.isNull(idColumnIndex)) return cursorMapper.map(cursor);
+
+			final long id = cursor.getLong(idColumnIndex);
+			final MappedInstance mappedInstance = instances.get(id);
+			if (mappedInstance != null && mappedInstance.hasColumns(columns)) return cls.cast(mappedInstance.instance);
+
+			final T instance = cursorMapper.map(cursor);
+			instances.put(id, new MappedInstance(instance, columns));
+			return instance;
+		}
+	}
+
+	private static class MappedInstance {
+		final Object instance;
+		// Null when the instance was written by the session, so that it holds every column
+		final HashSet<String> columns;
+
+		MappedInstance(Object instance, HashSet<String> columns) {
+			this.instance = instance;
+			this.columns = columns;
+		}
+
+		boolean hasColumns(HashSet<String> readColumns) {
+			return columns == null || columns.containsAll(readColumns);
+		}
+	}
+
+	private static class PendingWrite {
+		final String table;
+		final Object value;
+		final boolean isInsert;
+
+		PendingWrite(String table, Object value, boolean isInsert) {
+			this.table = table;
+			this.value = value;
+			this.isInsert = isInsert;
+		}
+	}
+}
@@ -0,0 +1,219 @@
+package com.namehillsoftware.querydroid;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link QueryListener} that keeps a latency histogram and counters for each query, to find the queries that take
+ * the most time. Histogram buckets are powers of two of nanoseconds, so recording an event doesn't allocate or lock.
+ *
+ * Like the {@link QueryCache}, the number of queries tracked is bounded; once it is reached, the histogram of the
+ * least recently run query is dropped to make room for a new one.
+ */
+public final class QueryStatistics implements QueryListener {
+
+	private static final int defaultCapacity = 512;
+
+	private final ConcurrentHashMap<String, QueryHistogram> histograms = new ConcurrentHashMap<>();
+	private final int capacity;
+
+	public QueryStatistics() {
+		this(defaultCapacity);
+	}
+
+	public QueryStatistics(int capacity) {
+		if (capacity < 1) throw new IllegalArgumentException("capacity must be positive.");
+
+		this.capacity = capacity;
+	}
+
+	@Override
+	public void onQueryCompleted(QueryEvent event) {
+		final String sql = event.getSql().trim();
+		QueryHistogram histogram = histograms.get(sql);
+		if (histogram == null) {
+			final QueryHistogram newHistogram = new QueryHistogram(sql);
+			histogram = histograms.putIfAbsent(sql, newHistogram);
+			if (histogram == null) {
+				histogram = newHistogram;
+				if (histograms.size() > capacity) evictOverflow(newHistogram);
+			}
+		}
+
+		histogram.record(event);
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public QueryHistogram getHistogram(String sql) {
+		return histograms.get(sql.trim());
+	}
+
+	public List<QueryHistogram> getHistograms() {
+		return new ArrayList<>(histograms.values());
+	}
+
+	/**
+	 * @return the queries with the most total time spent in them, slowest first
+	 */
+	public List<QueryHistogram> getSlowestQueries(int limit) {
+		final ArrayList<QueryHistogram> sortedHistograms = new ArrayList<>(histograms.values());
+		Collections.sort(sortedHistograms, (left, right) -> Long.compare(right.getTotalNanos(), left.getTotalNanos()));
+		return sortedHistograms.size() > limit ? new ArrayList<>(sortedHistograms.subList(0, limit)) : sortedHistograms;
+	}
+
+	public void reset() {
+		histograms.clear();
+	}
+
+	/**
+	 * Drops the least recently recorded histograms until the statistics are within their capacity, keeping the
+	 * histogram that was just added.
+	 */
+	private synchronized void evictOverflow(QueryHistogram addedHistogram) {
+		while (histograms.size() > capacity) {
+			Map.Entry<String, QueryHistogram> oldestEntry = null;
+			long oldestTime = Long.MAX_VALUE;
+			for (Map.Entry<String, QueryHistogram> entry : histograms.entrySet()) {
+				final QueryHistogram histogram = entry.getValue();
+				if (histogram == addedHistogram) continue;
+
+				if (oldestEntry == null || histogram.lastRecordedTime - oldestTime < 0) {
+					oldestEntry = entry;
+					oldestTime = histogram.lastRecordedTime;
+				}
+			}
+
+			if (oldestEntry == null) return;
+
+			histograms.remove(oldestEntry.getKey(), oldestEntry.getValue());
+		}
+	}
+
+	public static final class QueryHistogram {
+		private static final int BUCKET_COUNT = 64;
+
+		private final String sql;
+		private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+		private final AtomicLong count = new AtomicLong();
+		private final AtomicLong totalNanos = new AtomicLong();
+		private final AtomicLong maxNanos = new AtomicLong();
+		private final AtomicLong parseNanos = new AtomicLong();
+		private final AtomicLong executeNanos = new AtomicLong();
+		private final AtomicLong mappingNanos = new AtomicLong();
+		private final AtomicLong rowCount = new AtomicLong();
+		private final AtomicLong parseCacheMisses = new AtomicLong();
+		private volatile long lastRecordedTime = System.nanoTime();
+
+		QueryHistogram(String sql) {
+			this.sql = sql;
+		}
+
+		void record(QueryEvent event) {
+			final long eventNanos = event.getTotalNanos();
+			lastRecordedTime = System.nanoTime();
+			buckets.incrementAndGet(getBucket(eventNanos));
+			count.incrementAndGet();
+			totalNanos.addAndGet(eventNanos);
+			parseNanos.addAndGet(event.getParseNanos());
+			executeNanos.addAndGet(event.getExecuteNanos());
+			mappingNanos.addAndGet(event.getMappingNanos());
+			rowCount.addAndGet(event.getRowCount());
+			if (!event.isParseCacheHit()) parseCacheMisses.incrementAndGet();
+
+			long currentMaxNanos;
+			while (eventNanos > (currentMaxNanos = maxNanos.get()) && !maxNanos.compareAndSet(currentMaxNanos, eventNanos));
+		}
+
+		public String getSql() {
+			return sql;
+		}
+
+		public long getCount() {
+			return count.get();
+		}
+
+		public long getTotalNanos() {
+			return totalNanos.get();
+		}
+
+		public long getMaxNanos() {
+			return maxNanos.get();
+		}
+
+		public long getParseNanos() {
+			return parseNanos.get();
+		}
+
+		public long getExecuteNanos() {
+			return executeNanos.get();
+		}
+
+		public long getMappingNanos() {
+			return mappingNanos.get();
+		}
+
+		public long getRowCount() {
+			return rowCount.get();
+		}
+
+		public long getParseCacheMisses() {
+			return parseCacheMisses.get();
+		}
+
+		/**
+		 * @return an upper bound of the time taken by the given fraction (0 to 1) of the recorded queries, which is
+		 * at most twice the actual time
+		 */
+		public long getPercentileNanos(double fraction) {
+			long remaining = (long) Math.ceil(getCount() * fraction);
+			if (remaining <= 0) return 0;
+
+			for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+				remaining -= buckets.get(bucket);
+				if (remaining <= 0) return Math.min(getBucketLimit(bucket), getMaxNanos());
+			}
+
+			return getMaxNanos();
+		}
+
+		/**
+		 * @return the number of recorded queries in each bucket, where bucket i holds times below 2^i nanoseconds
+		 */
+		public long[] getBuckets() {
+			final long[] counts = new long[BUCKET_COUNT];
+			for (int bucket = 0; bucket < BUCKET_COUNT; bucket++)
+				counts[bucket] = buckets.get(bucket);
+
+			return counts;
+		}
+
+		private static int getBucket(long nanos) {
+			return nanos <= 0 ? 0 : Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(nanos));
+		}
+
+		private static long getBucketLimit(int bucket) {
+			return bucket >= BUCKET_COUNT - 1 ? Long.MAX_VALUE : 1L << bucket;
+		}
+
+		@Override
+		public String toString() {
+			return "QueryHistogram{" +
+				"sql='" + sql + '\'' +
+				", count=" + getCount() +
+				", totalNanos=" + getTotalNanos() +
+				", medianNanos=" + getPercentileNanos(.5) +
+				", p99Nanos=" + getPercentileNanos(.99) +
+				", maxNanos=" + getMaxNanos() +
+				", rowCount=" + getRowCount() +
+				'}';
+		}
+	}
+}
@@ -0,0 +1,319 @@
+package com.namehillsoftware.querydroid;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * A bounded, least-recently-used cache of fetched results, used by commands that opt in with
+ * {@link SqLiteCommand#withCachedResults()}. Results are keyed by database, SQL, bound parameters, and result type.
+ *
+ * Each table has a version that is bumped whenever a command writes to it; a cached result is only used while the
+ * versions of every name its query references are unchanged. Writes that don't go through QueryDroid, such as
+ * triggers, cascades, or other libraries, must be reported with {@link #invalidate(String)}, and transactions managed
+ * outside of QueryDroid should be followed by {@link #invalidateTransactionWrites()}.
+ *
+ * The cache is bounded by the number of values cached, that is, the rows times the columns of each result.
+ */
+public final class ResultCache {
+
+	private static final int defaultMaxCachedValues = 100_000;
+
+	private static final LinkedHashMap<ResultKey, CachedResult> results = new LinkedHashMap<>(16, .75f, true);
+	private static final HashMap<String, Long> tableVersions = new HashMap<>();
+	private static final WeakHashMap<SQLiteDatabase, Boolean> cachedDatabases = new WeakHashMap<>();
+
+	private static final ThreadLocal<HashSet<String>> transactionWrites = new ThreadLocal<>() {
+		@Override
+		protected HashSet<String> initialValue() {
+			return new HashSet<>();
+		}
+	};
+
+	private static volatile boolean isInUse;
+
+	private static int maxCachedValues = defaultMaxCachedValues;
+	private static long cachedValues;
+	private static int cachedDatabaseCount;
+	private static long allTablesVersion;
+	private static long hits;
+	private static long misses;
+	private static long evictions;
+
+	private ResultCache() {}
+
+	public static synchronized void setMaxCachedValues(int maxCachedValues) {
+		if (maxCachedValues < 0) throw new IllegalArgumentException("maxCachedValues must not be negative.");
+
+		ResultCache.maxCachedValues = maxCachedValues;
+		evictOverflow();
+	}
+
+	public static synchronized int getMaxCachedValues() {
+		return maxCachedValues;
+	}
+
+	public static synchronized CacheStatistics getStatistics() {
+		return new CacheStatistics(hits, misses, evictions, results.size());
+	}
+
+	public static synchronized void clear() {
+		results.clear();
+		cachedValues = 0;
+	}
+
+	public static synchronized void invalidate(String table) {
+		final String key = table.toLowerCase(Locale.ROOT);
+		final Long version = tableVersions.get(key);
+		tableVersions.put(key, version != null ? version + 1 : 1);
+	}
+
+	public static synchronized void invalidateAll() {
+		++allTablesVersion;
+	}
+
+	/**
+	 * Invalidates the tables written on this thread since the last call, inside transactions. Writes made in a
+	 * transaction invalidate their tables right away, but another thread could still read and cache the committed
+	 * rows before the transaction commits; call this after committing a transaction of your own.
+	 */
+	public static void invalidateTransactionWrites() {
+		final HashSet<String> writtenTables = transactionWrites.get();
+		if (writtenTables.isEmpty()) return;
+
+		synchronized (ResultCache.class) {
+			for (String table : writtenTables) {
+				if (table != null) invalidate(table);
+				else invalidateAll();
+			}
+		}
+
+		writtenTables.clear();
+	}
+
+	static void invalidate(PreparedQuery preparedQuery, SQLiteDatabase database) {
+		if (preparedQuery.isSelect()) return;
+
+		final String writtenTable = preparedQuery.getWrittenTable();
+
+		// Recorded even while nothing is cached yet, since another thread could cache this transaction's rows before
+		// it commits
+		if (database.inTransaction()) transactionWrites.get().add(writtenTable);
+
+		if (!isInUse) return;
+
+		if (writtenTable != null) invalidate(writtenTable);
+		else invalidateAll();
+	}
+
+	static synchronized List<?> get(ResultKey resultKey) {
+		evictClosedDatabases();
+
+		final CachedResult cachedResult = results.get(resultKey);
+		if (cachedResult == null) {
+			++misses;
+			return null;
+		}
+
+		if (!cachedResult.versions.equals(getVersions(cachedResult.versions.tables))) {
+			results.remove(resultKey);
+			cachedValues -= cachedResult.weight;
+			++misses;
+			return null;
+		}
+
+		++hits;
+		return cachedResult.rows;
+	}
+
+	/**
+	 * Gets the versions of the tables the query reads. Taken before the query runs, so that a write made while it runs
+	 * makes the cached result stale.
+	 */
+	static synchronized Versions getVersions(PreparedQuery preparedQuery) {
+		return getVersions(preparedQuery.getReferencedNames());
+	}
+
+	static synchronized void put(ResultKey resultKey, Versions versions, List<?> rows, int columnCount) {
+		final long weight = Math.max(1L, (long) rows.size() * columnCount);
+		if (weight > maxCachedValues) return;
+
+		isInUse = true;
+
+		evictClosedDatabases();
+		final SQLiteDatabase database = resultKey.database.get();
+		if (database != null && !cachedDatabases.containsKey(database)) {
+			cachedDatabases.put(database, Boolean.TRUE);
+			++cachedDatabaseCount;
+		}
+
+		final CachedResult previous = results.put(resultKey, new CachedResult(versions, rows, weight));
+		if (previous != null) cachedValues -= previous.weight;
+		cachedValues += weight;
+
+		evictOverflow();
+	}
+
+	private static Versions getVersions(Set<String> tables) {
+		final long[] versions = new long[tables.size()];
+		int i = 0;
+		for (String table : tables) {
+			final Long version = tableVersions.get(table);
+			versions[i++] = version != null ? version : 0;
+		}
+
+		return new Versions(tables, versions, allTablesVersion);
+	}
+
+	/**
+	 * Drops the results of databases that were closed or collected. Only the few databases with cached results are
+	 * checked, and the results are only walked when one of them is gone.
+	 */
+	private static void evictClosedDatabases() {
+		boolean hasClosedDatabase = cachedDatabases.size() < cachedDatabaseCount;
+		final Iterator<SQLiteDatabase> databaseIterator = cachedDatabases.keySet().iterator();
+		while (databaseIterator.hasNext()) {
+			if (databaseIterator.next().isOpen()) continue;
+
+			databaseIterator.remove();
+			hasClosedDatabase = true;
+		}
+
+		cachedDatabaseCount = cachedDatabases.size();
+		if (!hasClosedDatabase) return;
+
+		final Iterator<Map.Entry<ResultKey, CachedResult>> iterator = results.entrySet().iterator();
+		while (iterator.hasNext()) {
+			final Map.Entry<ResultKey, CachedResult> entry = iterator.next();
+			final SQLiteDatabase database = entry.getKey().database.get();
+			if (database != null && database.isOpen()) continue;
+
+			cachedValues -= entry.getValue().weight;
+			iterator.remove();
+			++evictions;
+		}
+	}
+
+	private static void evictOverflow() {
+		final Iterator<Map.Entry<ResultKey, CachedResult>> iterator = results.entrySet().iterator();
+		while (cachedValues > maxCachedValues && iterator.hasNext()) {
+			cachedValues -= iterator.next().getValue().weight;
+			iterator.remove();
+			++evictions;
+		}
+	}
+
+	static final class ResultKey {
+		// Cached rows don't reference their database, so it can be collected once it's closed and released
+		private final WeakReference<SQLiteDatabase> database;
+		private final String sqlQuery;
+		private final Class<?> cls;
+		private final boolean isFirstOnly;
+		private final byte[] valueTypes;
+		private final long[] numericValues;
+		private final Object[] objectValues;
+		private final int hashCode;
+
+		ResultKey(SQLiteDatabase database, String sqlQuery, Class<?> cls, boolean isFirstOnly, byte[] valueTypes, long[] numericValues, Object[] objectValues) {
+			this.database = new WeakReference<>(database);
+			this.sqlQuery = sqlQuery;
+			this.cls = cls;
+			this.isFirstOnly = isFirstOnly;
+			this.valueTypes = valueTypes.clone();
+			this.numericValues = numericValues.clone();
+			this.objectValues = copyArrays(objectValues);
+
+			int hash = System.identityHashCode(database);
+			hash = 31 * hash + sqlQuery.hashCode();
+			hash = 31 * hash + cls.hashCode();
+			hash = 31 * hash + (isFirstOnly ? 1 : 0);
+			hash = 31 * hash + Arrays.hashCode(numericValues);
+			hash = 31 * hash + Arrays.deepHashCode(objectValues);
+			hashCode = hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (!(o instanceof ResultKey)) return false;
+
+			final ResultKey other = (ResultKey) o;
+			final SQLiteDatabase database = this.database.get();
+			return hashCode == other.hashCode
+				&& database != null
+				&& database == other.database.get()
+				&& isFirstOnly == other.isFirstOnly
+				&& cls == other.cls
+				&& sqlQuery.equals(other.sqlQuery)
+				&& Arrays.equals(valueTypes, other.valueTypes)
+				&& Arrays.equals(numericValues, other.numericValues)
+				&& Arrays.deepEquals(objectValues, other.objectValues);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		// Collections and blobs are bound by reference, so the key copies them in case the caller changes them later
+		private static Object[] copyArrays(Object[] values) {
+			final Object[] copies = values.clone();
+			for (int i = 0; i < copies.length; i++) {
+				final Object value = copies[i];
+				if (value instanceof long[]) copies[i] = ((long[]) value).clone();
+				else if (value instanceof double[]) copies[i] = ((double[]) value).clone();
+				else if (value instanceof byte[]) copies[i] = ((byte[]) value).clone();
+				else if (value instanceof Object[]) copies[i] = copyArrays((Object[]) value);
+			}
+
+			return copies;
+		}
+	}
+
+	static final class Versions {
+		private final Set<String> tables;
+		private final long[] versions;
+		private final long allTablesVersion;
+
+		private Versions(Set<String> tables, long[] versions, long allTablesVersion) {
+			this.tables = tables;
+			this.versions = versions;
+			this.allTablesVersion = allTablesVersion;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Versions)) return false;
+
+			final Versions other = (Versions) o;
+			return allTablesVersion == other.allTablesVersion && Arrays.equals(versions, other.versions);
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(versions);
+		}
+	}
+
+	private static class CachedResult {
+		final Versions versions;
+		final List<?> rows;
+		final long weight;
+
+		CachedResult(Versions versions, List<?> rows, long weight) {
+			this.versions = versions;
+			this.rows = rows;
+			this.weight = weight;
+		}
+	}
+}
@@ -1,9 +1,15 @@
 package com.namehillsoftware.querydroid;
 
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Build;
 import android.util.Pair;
+
+import androidx.annotation.RequiresApi;
+
 import com.namehillsoftware.lazyj.AbstractSynchronousLazy;
 
+import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -63,11 +69,22 @@ public class SqLiteAssistants {
         }
     }
 
+    private static void makeAccessible(AccessibleObject accessibleObject) {
+        try {
+            accessibleObject.setAccessible(true);
+        } catch (RuntimeException ignored) {
+            // Fall back to checked access, which is still correct for public members.
+        }
+    }
+
     private static class FieldGetter implements IGetter {
-       private final Field receiver;
+        private final Field receiver;
+        private final BindField bindField;
 
         private FieldGetter(Field receiver) {
             this.receiver = receiver;
+            bindField = getFieldBinder(receiver.getType());
+            makeAccessible(receiver);
         }
 
         @Override
@@ -78,13 +95,57 @@ public class SqLiteAssistants {
                 throw new RuntimeException(e);
             }
         }
+
+        @Override
+        public void addParameter(SqLiteCommand command, String parameter, Object target) {
+            try {
+                bindField.bind(command, parameter, receiver, target);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        private static BindField getFieldBinder(Class<?> type) {
+            if (Boolean.TYPE.equals(type))
+                return (command, parameter, field, target) -> command.addParameter(parameter, field.getBoolean(target));
+
+            if (Short.TYPE.equals(type))
+                return (command, parameter, field, target) -> command.addParameter(parameter, field.getShort(target));
+
+            if (Integer.TYPE.equals(type))
+                return (command, parameter, field, target) -> command.addParameter(parameter, field.getInt(target));
+
+            if (Long.TYPE.equals(type))
+                return (command, parameter, field, target) -> command.addParameter(parameter, field.getLong(target));
+
+            if (Float.TYPE.equals(type))
+                return (command, parameter, field, target) -> command.addParameter(parameter, field.getFloat(target));
+
+            if (Double.TYPE.equals(type))
+                return (command, parameter, field, target) -> command.addParameter(parameter, field.getDouble(target));
+
+            if (String.class.equals(type))
+                return (command, parameter, field, target) -> command.addParameter(parameter, (String) field.get(target));
+
+            if (byte[].class.equals(type))
+                return (command, parameter, field, target) -> command.addParameter(parameter, (byte[]) field.get(target));
+
+            return (command, parameter, field, target) -> command.addParameter(parameter, field.get(target));
+        }
+
+        private interface BindField {
+            void bind(SqLiteCommand command, String parameter, Field field, Object target) throws IllegalAccessException;
+        }
     }
 
     private static class MethodGetter implements IGetter {
         private final Method receiver;
+        private final BindMethod bindMethod;
 
         private MethodGetter(Method receiver) {
             this.receiver = receiver;
+            bindMethod = getMethodBinder(receiver.getReturnType());
+            makeAccessible(receiver);
         }
 
         @Override
@@ -97,77 +158,487 @@ public class SqLiteAssistants {
                 throw new RuntimeException(e);
             }
         }
+
+        @Override
+        public void addParameter(SqLiteCommand command, String parameter, Object target) {
+            try {
+                bindMethod.bind(command, parameter, receiver, target);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        private static BindMethod getMethodBinder(Class<?> type) {
+            if (Boolean.TYPE.equals(type))
+                return (command, parameter, method, target) -> command.addParameter(parameter, (boolean) method.invoke(target));
+
+            if (Short.TYPE.equals(type))
+                return (command, parameter, method, target) -> command.addParameter(parameter, (short) method.invoke(target));
+
+            if (Integer.TYPE.equals(type))
+                return (command, parameter, method, target) -> command.addParameter(parameter, (int) method.invoke(target));
+
+            if (Long.TYPE.equals(type))
+                return (command, parameter, method, target) -> command.addParameter(parameter, (long) method.invoke(target));
+
+            if (Float.TYPE.equals(type))
+                return (command, parameter, method, target) -> command.addParameter(parameter, (float) method.invoke(target));
+
+            if (Double.TYPE.equals(type))
+                return (command, parameter, method, target) -> command.addParameter(parameter, (double) method.invoke(target));
+
+            if (String.class.equals(type))
+                return (command, parameter, method, target) -> command.addParameter(parameter, (String) method.invoke(target));
+
+            if (byte[].class.equals(type))
+                return (command, parameter, method, target) -> command.addParameter(parameter, (byte[]) method.invoke(target));
+
+            return (command, parameter, method, target) -> command.addParameter(parameter, method.invoke(target));
+        }
+
+        private interface BindMethod {
+            void bind(SqLiteCommand command, String parameter, Method method, Object target) throws IllegalAccessException, InvocationTargetException;
+        }
     }
 
     private interface IGetter {
         Object get(Object target);
+
+        void addParameter(SqLiteCommand command, String parameter, Object target);
     }
 
-    private static final ConcurrentHashMap<Pair<Class<?>, String>, String> cachedInsertStatements = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<Pair<Class<?>, String>, String> cachedUpdateStatements = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Pair<Class<?>, String>, PreparedQuery> cachedInsertStatements = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Pair<Class<?>, String>, PreparedQuery> cachedUpdateStatements = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Pair<Class<?>, String>, PreparedQuery> cachedPartialUpdateStatements = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Pair<Class<?>, String>, PreparedQuery> cachedUpsertStatements = new ConcurrentHashMap<>();
+    static void addParameters(SqLiteCommand command, PreparedQuery preparedQuery, Object value) {
+        // Plans are kept by their query, so that they are evicted from the QueryCache along with it
+        final Class<?> cls = value.getClass();
+        ParameterPlan parameterPlan = preparedQuery.parameterPlans.get(cls);
+        if (parameterPlan == null) {
+            parameterPlan = new ParameterPlan(preparedQuery, ClassCache.getReflections(cls).getterMap.getObject());
+            preparedQuery.parameterPlans.put(cls, parameterPlan);
+        }
+
+        parameterPlan.addParameters(command, value);
+    }
+
+    /**
+     * The getters for the placeholders of one query, in slot order.
+     */
+    static class ParameterPlan {
+        private final String[] parameters;
+        private final IGetter[] getters;
+
+        ParameterPlan(PreparedQuery preparedQuery, Map<String, IGetter> getterMap) {
+            final int slotCount = preparedQuery.getSlotCount();
+            final String[] parameters = new String[slotCount];
+            final IGetter[] getters = new IGetter[slotCount];
+
+            int boundCount = 0;
+            for (int slot = 0; slot < slotCount; slot++) {
+                final String parameter = preparedQuery.getSlotName(slot);
+                final IGetter getter = getterMap.get(parameter.toLowerCase(Locale.ROOT));
+                if (getter == null) continue;
+
+                parameters[boundCount] = parameter;
+                getters[boundCount++] = getter;
+            }
+
+            this.parameters = Arrays.copyOf(parameters, boundCount);
+            this.getters = Arrays.copyOf(getters, boundCount);
+        }
+
+        void addParameters(SqLiteCommand command, Object value) {
+            for (int i = 0; i < getters.length; i++)
+                getters[i].addParameter(command, parameters[i], value);
+        }
+    }
 
     public static <T> long insertValue(SQLiteDatabase database, String table, T value) {
-        final Class<?> cls = value.getClass();
-        final ClassReflections classReflections = ClassCache.getReflections(cls);
+        return prepareInsertCommand(database, table, value).execute();
+    }
 
-        final Map<String, IGetter> getterMap = classReflections.getterMap.getObject();
+    public static <T> long[] insertValues(SQLiteDatabase database, String table, Iterable<T> values) {
+        return insertValues(database, table, values, 0);
+    }
 
-        table = table.toLowerCase(Locale.ROOT);
-        Pair<Class<?>, String> insertCacheKey = new Pair<>(cls, table);
-        String insertCommand = cachedInsertStatements.get(insertCacheKey);
-        if (insertCommand == null) {
-            final InsertBuilder insertBuilder = InsertBuilder.fromTable(table);
-            for (String getterKey : getterMap.keySet()) {
-                if (!Objects.equals(getterKey, "id"))
-                    insertBuilder.addColumn(getterKey);
+    public static <T> long[] insertValues(SQLiteDatabase database, String table, Iterable<T> values, int chunkSize) {
+        return executeBatch(database, values, chunkSize, cls -> planInsertCommand(database, table, cls));
+    }
+
+    /**
+     * Inserts the value, then sets its id field or setter to the generated row id.
+     */
+    public static <T> long insertValueAndSetId(SQLiteDatabase database, String table, T value) {
+        final long rowId = insertValue(database, table, value);
+        if (rowId > -1) SqLiteCommand.setGeneratedId(value, rowId);
+        return rowId;
+    }
+
+    public static <T> long[] insertValuesAndSetIds(SQLiteDatabase database, String table, Iterable<T> values) {
+        return insertValuesAndSetIds(database, table, values, 0);
+    }
+
+    public static <T> long[] insertValuesAndSetIds(SQLiteDatabase database, String table, Iterable<T> values, int chunkSize) {
+        // Ids are only set once the inserts are committed, so the values are read twice
+        final Collection<T> insertedValues;
+        if (values instanceof Collection) {
+            insertedValues = (Collection<T>) values;
+        } else {
+            insertedValues = new ArrayList<>();
+            for (T value : values) insertedValues.add(value);
+        }
+
+        final long[] rowIds = insertValues(database, table, insertedValues, chunkSize);
+
+        int i = 0;
+        for (T value : insertedValues) {
+            final long rowId = rowIds[i++];
+            if (rowId > -1) SqLiteCommand.setGeneratedId(value, rowId);
+        }
+
+        return rowIds;
+    }
+
+    public static <T> long updateValue(SQLiteDatabase database, String table, T value) {
+        return prepareUpdateCommand(database, table, value).execute();
+    }
+
+    /**
+     * Updates only the given columns of the value's row, matched by id.
+     *
+     * @throws IllegalArgumentException if a column has no public field or getter on the value
+     */
+    public static <T> long updateValue(SQLiteDatabase database, String table, T value, Collection<String> changedColumns) {
+        final TreeSet<String> columns = new TreeSet<>();
+        for (String column : changedColumns) {
+            final String lowerCaseColumn = column.toLowerCase(Locale.ROOT);
+            if (!Objects.equals(lowerCaseColumn, "id"))
+                columns.add(lowerCaseColumn);
+        }
+
+        if (columns.isEmpty()) return 0;
+
+        return prepareCommand(database, value, (cls, allColumns) -> {
+            // A column without a getter would be left unbound, and set to null
+            for (String column : columns) {
+                if (!allColumns.contains(column))
+                    throw new IllegalArgumentException("The column \"" + column + "\" has no public field or getter on " + cls.getName() + ".");
             }
 
-            insertCommand = insertBuilder.buildQuery();
-            cachedInsertStatements.put(insertCacheKey, insertCommand);
+            return getPartialUpdateCommand(cls, table, columns);
+        }).execute();
+    }
+
+    /**
+     * Updates only the columns of the value that changed since the snapshot was taken. Nothing is written when
+     * nothing changed.
+     */
+    public static <T> long updateChangedValue(SQLiteDatabase database, String table, T value, Snapshot snapshot) {
+        return updateValue(database, table, value, snapshot.getChangedColumns(value));
+    }
+
+    /**
+     * Records the current column values of the value, for later use with
+     * {@link #updateChangedValue(SQLiteDatabase, String, Object, Snapshot)}.
+     */
+    public static <T> Snapshot snapshot(T value) {
+        final Map<String, IGetter> getterMap = ClassCache.getReflections(value.getClass()).getterMap.getObject();
+        final HashMap<String, Object> values = new HashMap<>(getterMap.size());
+        for (Map.Entry<String, IGetter> getterEntry : getterMap.entrySet()) {
+            Object columnValue = getterEntry.getValue().get(value);
+            if (columnValue instanceof byte[])
+                columnValue = ((byte[]) columnValue).clone();
+
+            values.put(getterEntry.getKey(), columnValue);
+        }
+
+        return new Snapshot(value.getClass(), values);
+    }
+
+    /**
+     * Inserts the value, or updates the existing row when the insert conflicts on the given columns. Requires SQLite
+     * 3.24, which ships with Android 11; older devices fail with a syntax error.
+     *
+     * @return the number of rows inserted or updated, which is 1 unless the conflict skipped the write
+     */
+    @RequiresApi(Build.VERSION_CODES.R)
+    public static <T> long upsertValue(SQLiteDatabase database, String table, T value, String... conflictColumns) {
+        return prepareUpsertCommand(database, table, value, conflictColumns).execute();
+    }
+
+    /**
+     * Upserts each value, like {@link #upsertValue}, in one transaction. Requires Android 11 or later; older devices
+     * fail with a syntax error.
+     */
+    @RequiresApi(Build.VERSION_CODES.R)
+    public static <T> long[] upsertValues(SQLiteDatabase database, String table, Iterable<T> values, String... conflictColumns) {
+        return executeBatch(database, values, 0, cls -> planUpsertCommand(database, table, cls, conflictColumns));
+    }
+
+    public static <T> long[] updateValues(SQLiteDatabase database, String table, Iterable<T> values) {
+        return updateValues(database, table, values, 0);
+    }
+
+    public static <T> long[] updateValues(SQLiteDatabase database, String table, Iterable<T> values, int chunkSize) {
+        return executeBatch(database, values, chunkSize, cls -> planUpdateCommand(database, table, cls));
+    }
+
+    private static <T> SqLiteCommand prepareInsertCommand(SQLiteDatabase database, String table, T value) {
+        return planInsertCommand(database, table, value.getClass()).bind(value);
+    }
+
+    private static <T> SqLiteCommand prepareUpdateCommand(SQLiteDatabase database, String table, T value) {
+        return planUpdateCommand(database, table, value.getClass()).bind(value);
+    }
+
+    @RequiresApi(Build.VERSION_CODES.R)
+    private static <T> SqLiteCommand prepareUpsertCommand(SQLiteDatabase database, String table, T value, String[] conflictColumns) {
+        return planUpsertCommand(database, table, value.getClass(), conflictColumns).bind(value);
+    }
+
+    private static <T> SqLiteCommand prepareCommand(SQLiteDatabase database, T value, GetCommand getCommand) {
+        return planCommand(database, value.getClass(), getCommand).bind(value);
+    }
+
+    private static CommandPlan planInsertCommand(SQLiteDatabase database, String table, Class<?> cls) {
+        return planCommand(database, cls, (c, columns) -> getInsertCommand(c, table, columns));
+    }
+
+    private static CommandPlan planUpdateCommand(SQLiteDatabase database, String table, Class<?> cls) {
+        return planCommand(database, cls, (c, columns) -> getUpdateCommand(c, table, columns));
+    }
+
+    @RequiresApi(Build.VERSION_CODES.R)
+    private static CommandPlan planUpsertCommand(SQLiteDatabase database, String table, Class<?> cls, String[] conflictColumns) {
+        final CommandPlan commandPlan = planCommand(database, cls, (c, columns) -> getUpsertCommand(c, table, columns, conflictColumns));
+        commandPlan.command.countChanges();
+        return commandPlan;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CommandPlan planCommand(SQLiteDatabase database, Class<?> cls, GetCommand getCommand) {
+        final SqLiteMappings.CachedMapping<Object> generatedMapping = SqLiteMappings.getMapping((Class<Object>) cls);
+        if (generatedMapping != null) {
+            final SqLiteMapping<Object> mapping = generatedMapping.mapping;
+            final PreparedQuery preparedQuery = getCommand.get(cls, Arrays.asList(mapping.getGetterColumns()));
+            return new CommandPlan(new SqLiteCommand(database, preparedQuery), mapping, null, null);
         }
 
-        final SqLiteCommand command = new SqLiteCommand(database, insertCommand);
+        final Map<String, IGetter> getterMap = ClassCache.getReflections(cls).getterMap.getObject();
+        final PreparedQuery preparedQuery = getCommand.get(cls, getterMap.keySet());
+
+        final String[] parameters = new String[getterMap.size()];
+        final IGetter[] getters = new IGetter[getterMap.size()];
+        int i = 0;
         for (Map.Entry<String, IGetter> getterEntry : getterMap.entrySet()) {
-            command.addParameter(getterEntry.getKey(), getterEntry.getValue().get(value));
+            parameters[i] = getterEntry.getKey();
+            getters[i++] = getterEntry.getValue();
         }
 
-        return command.execute();
+        return new CommandPlan(new SqLiteCommand(database, preparedQuery), null, parameters, getters);
     }
 
-    public static <T> long updateValue(SQLiteDatabase database, String table, T value) {
-        final Class<?> cls = value.getClass();
-        final ClassReflections classReflections = ClassCache.getReflections(cls);
+    private interface GetCommand {
+        PreparedQuery get(Class<?> cls, Collection<String> columns);
+    }
+
+    /**
+     * A command for values of one class, with the getters that bind each value to it. Binding a value replaces the
+     * parameters of the previous one, so a batch reuses one command for every value of a class.
+     */
+    private static final class CommandPlan {
+        final SqLiteCommand command;
+        private final SqLiteMapping<Object> mapping;
+        private final String[] parameters;
+        private final IGetter[] getters;
+
+        CommandPlan(SqLiteCommand command, SqLiteMapping<Object> mapping, String[] parameters, IGetter[] getters) {
+            this.command = command;
+            this.mapping = mapping;
+            this.parameters = parameters;
+            this.getters = getters;
+        }
+
+        SqLiteCommand bind(Object value) {
+            if (mapping != null) {
+                mapping.addParameters(value, command);
+                return command;
+            }
+
+            for (int i = 0; i < getters.length; i++)
+                getters[i].addParameter(command, parameters[i], value);
+
+            return command;
+        }
+    }
+
+    private static <T> long[] executeBatch(SQLiteDatabase database, Iterable<T> values, int chunkSize, PlanCommand planCommand) {
+        long[] results = new long[values instanceof Collection ? ((Collection<?>) values).size() : 16];
+        int resultCount = 0;
+
+        final HashMap<Class<?>, CommandPlan> commandPlans = new HashMap<>();
+        final HashMap<String, SQLiteStatement> compiledStatements = new HashMap<>();
+        Class<?> plannedClass = null;
+        CommandPlan commandPlan = null;
+        database.beginTransaction();
+        try {
+            for (T value : values) {
+                if (resultCount == results.length)
+                    results = Arrays.copyOf(results, Math.max(16, results.length * 2));
+
+                final Class<?> cls = value.getClass();
+                if (cls != plannedClass) {
+                    plannedClass = cls;
+                    commandPlan = commandPlans.get(cls);
+                    if (commandPlan == null) {
+                        commandPlan = planCommand.plan(cls);
+                        commandPlans.put(cls, commandPlan);
+                    }
+                }
 
-        final Map<String, IGetter> getterMap = classReflections.getterMap.getObject();
+                results[resultCount++] = commandPlan.bind(value).execute(compiledStatements);
 
+                if (chunkSize > 0 && resultCount % chunkSize == 0) {
+                    database.setTransactionSuccessful();
+                    database.endTransaction();
+                    if (!database.inTransaction()) ResultCache.invalidateTransactionWrites();
+                    database.beginTransaction();
+                }
+            }
+
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+            if (!database.inTransaction()) ResultCache.invalidateTransactionWrites();
+
+            for (SQLiteStatement statement : compiledStatements.values())
+                statement.close();
+        }
+
+        return resultCount == results.length ? results : Arrays.copyOf(results, resultCount);
+    }
+
+    private interface PlanCommand {
+        CommandPlan plan(Class<?> cls);
+    }
+
+    private static PreparedQuery getInsertCommand(Class<?> cls, String table, Collection<String> columns) {
+        table = table.toLowerCase(Locale.ROOT);
+        Pair<Class<?>, String> insertCacheKey = new Pair<>(cls, table);
+        PreparedQuery insertCommand = cachedInsertStatements.get(insertCacheKey);
+        if (insertCommand != null) return insertCommand;
+
+        final InsertBuilder insertBuilder = InsertBuilder.fromTable(table);
+        for (String column : columns) {
+            if (!Objects.equals(column, "id"))
+                insertBuilder.addColumn(column);
+        }
+
+        insertCommand = PreparedQuery.prepare(insertBuilder.buildQuery());
+        cachedInsertStatements.put(insertCacheKey, insertCommand);
+        return insertCommand;
+    }
+
+    private static PreparedQuery getUpdateCommand(Class<?> cls, String table, Collection<String> columns) {
         table = table.toLowerCase(Locale.ROOT);
         Pair<Class<?>, String> updateCacheKey = new Pair<>(cls, table);
-        String updateCommand = cachedUpdateStatements.get(updateCacheKey);
-        if (updateCommand == null) {
-            final UpdateBuilder updateBuilder = UpdateBuilder.fromTable(table);
-            for (String getterKey : getterMap.keySet()) {
-                if (!Objects.equals(getterKey, "id"))
-                    updateBuilder.addSetter(getterKey);
-            }
+        PreparedQuery updateCommand = cachedUpdateStatements.get(updateCacheKey);
+        if (updateCommand != null) return updateCommand;
+
+        final UpdateBuilder updateBuilder = UpdateBuilder.fromTable(table);
+        for (String column : columns) {
+            if (!Objects.equals(column, "id"))
+                updateBuilder.addSetter(column);
+        }
 
-            updateBuilder.setFilter("where id = @id");
+        updateBuilder.setFilter("where id = @id");
 
-            updateCommand = updateBuilder.buildQuery();
-            cachedUpdateStatements.put(updateCacheKey, updateCommand);
+        updateCommand = PreparedQuery.prepare(updateBuilder.buildQuery());
+        cachedUpdateStatements.put(updateCacheKey, updateCommand);
+        return updateCommand;
+    }
+
+    private static PreparedQuery getPartialUpdateCommand(Class<?> cls, String table, SortedSet<String> columns) {
+        table = table.toLowerCase(Locale.ROOT);
+
+        final StringBuilder cacheKeyBuilder = new StringBuilder(table);
+        for (String column : columns)
+            cacheKeyBuilder.append(' ').append(column);
+
+        Pair<Class<?>, String> updateCacheKey = new Pair<>(cls, cacheKeyBuilder.toString());
+        PreparedQuery updateCommand = cachedPartialUpdateStatements.get(updateCacheKey);
+        if (updateCommand != null) return updateCommand;
+
+        final UpdateBuilder updateBuilder = UpdateBuilder.fromTable(table);
+        for (String column : columns)
+            updateBuilder.addSetter(column);
+
+        updateBuilder.setFilter("where id = @id");
+
+        updateCommand = PreparedQuery.prepare(updateBuilder.buildQuery());
+        cachedPartialUpdateStatements.put(updateCacheKey, updateCommand);
+        return updateCommand;
+    }
+
+    @RequiresApi(Build.VERSION_CODES.R)
+    private static PreparedQuery getUpsertCommand(Class<?> cls, String table, Collection<String> columns, String[] conflictColumns) {
+        table = table.toLowerCase(Locale.ROOT);
+
+        final StringBuilder cacheKeyBuilder = new StringBuilder(table);
+        final String[] lowerCaseConflictColumns = new String[conflictColumns.length];
+        for (int i = 0; i < conflictColumns.length; i++) {
+            lowerCaseConflictColumns[i] = conflictColumns[i].toLowerCase(Locale.ROOT);
+            cacheKeyBuilder.append(' ').append(lowerCaseConflictColumns[i]);
         }
 
-        final SqLiteCommand command = new SqLiteCommand(database, updateCommand);
-        for (Map.Entry<String, IGetter> getterEntry : getterMap.entrySet()) {
-            command.addParameter(getterEntry.getKey(), getterEntry.getValue().get(value));
+        Pair<Class<?>, String> upsertCacheKey = new Pair<>(cls, cacheKeyBuilder.toString());
+        PreparedQuery upsertCommand = cachedUpsertStatements.get(upsertCacheKey);
+        if (upsertCommand != null) return upsertCommand;
+
+        final List<String> conflictColumnList = Arrays.asList(lowerCaseConflictColumns);
+        final InsertBuilder insertBuilder = InsertBuilder.fromTable(table).withConflictUpdate(lowerCaseConflictColumns);
+        for (String column : columns) {
+            if (!Objects.equals(column, "id") || conflictColumnList.contains(column))
+                insertBuilder.addColumn(column);
         }
 
-        return command.execute();
+        upsertCommand = PreparedQuery.prepare(insertBuilder.buildQuery());
+        cachedUpsertStatements.put(upsertCacheKey, upsertCommand);
+        return upsertCommand;
+    }
+
+    public static final class Snapshot {
+        private final Class<?> cls;
+        private final Map<String, Object> values;
+
+        private Snapshot(Class<?> cls, Map<String, Object> values) {
+            this.cls = cls;
+            this.values = values;
+        }
+
+        public Set<String> getChangedColumns(Object value) {
+            if (value.getClass() != cls)
+                throw new IllegalArgumentException("The snapshot was taken of a " + cls.getName() + ", not a " + value.getClass().getName() + ".");
+
+            final Map<String, IGetter> getterMap = ClassCache.getReflections(cls).getterMap.getObject();
+            final HashSet<String> changedColumns = new HashSet<>();
+            for (Map.Entry<String, IGetter> getterEntry : getterMap.entrySet()) {
+                final String column = getterEntry.getKey();
+                if (!Objects.deepEquals(values.get(column), getterEntry.getValue().get(value)))
+                    changedColumns.add(column);
+            }
+
+            return changedColumns;
+        }
     }
 
     public static class InsertBuilder {
         private final ArrayList<String> columns = new ArrayList<>();
         private final String tableName;
         private boolean shouldReplace = false;
+        private String[] conflictColumns;
 
         public static InsertBuilder fromTable(String tableName) {
             return new InsertBuilder(tableName);
@@ -185,11 +656,25 @@ public class SqLiteAssistants {
 
         public InsertBuilder withReplacement() {
             shouldReplace = true;
+            conflictColumns = null;
             return this;
         }
 
         public InsertBuilder withoutReplacement() {
             shouldReplace = false;
+            conflictColumns = null;
+            return this;
+        }
+
+        /**
+         * Updates the other columns of the existing row in place when the insert conflicts on the given columns,
+         * using {@code ON CONFLICT ... DO UPDATE}. Unlike {@link #withReplacement()}, the row isn't deleted first.
+         * Requires SQLite 3.24, which ships with Android 11; on older devices the query fails with a syntax error.
+         */
+        @RequiresApi(Build.VERSION_CODES.R)
+        public InsertBuilder withConflictUpdate(String... conflictColumns) {
+            shouldReplace = false;
+            this.conflictColumns = conflictColumns;
             return this;
         }
 
@@ -216,7 +701,33 @@ public class SqLiteAssistants {
                     sqlStringBuilder.append(", ");
             }
 
-            return sqlStringBuilder.append(')').toString();
+            sqlStringBuilder.append(')');
+
+            if (conflictColumns == null || conflictColumns.length == 0)
+                return sqlStringBuilder.toString();
+
+            sqlStringBuilder.append(" ON CONFLICT (");
+            for (int i = 0; i < conflictColumns.length; i++) {
+                if (i > 0) sqlStringBuilder.append(", ");
+                sqlStringBuilder.append(conflictColumns[i]);
+            }
+            sqlStringBuilder.append(") DO ");
+
+            final List<String> conflictColumnList = Arrays.asList(conflictColumns);
+            boolean hasSetters = false;
+            for (String column : columns) {
+                if (conflictColumnList.contains(column)) continue;
+
+                sqlStringBuilder
+                    .append(hasSetters ? ", " : "UPDATE SET ")
+                    .append(column).append(" = excluded.").append(column);
+                hasSetters = true;
+            }
+
+            if (!hasSetters)
+                sqlStringBuilder.append("NOTHING");
+
+            return sqlStringBuilder.toString();
         }
     }
 
@@ -1,39 +1,83 @@
 package com.namehillsoftware.querydroid;
 
 import android.database.Cursor;
+import android.database.MergeCursor;
 import android.database.SQLException;
+import android.database.sqlite.SQLiteCursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteProgram;
 import android.database.sqlite.SQLiteStatement;
-import android.util.Pair;
+import android.os.Build;
+
+import androidx.annotation.RequiresApi;
 
 import com.namehillsoftware.lazyj.AbstractSynchronousLazy;
 
+import java.io.Closeable;
+import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Objects;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class SqLiteCommand {
-	private final SQLiteDatabase database;
-	private final String command;
-	private final HashMap<String, String> parameters = new HashMap<>();
+	private static final byte NULL_VALUE = 0;
+	private static final byte LONG_VALUE = 1;
+	private static final byte DOUBLE_VALUE = 2;
+	private static final byte STRING_VALUE = 3;
+	private static final byte BLOB_VALUE = 4;
+	private static final byte COLLECTION_VALUE = 5;
+
+	// SQLite's default SQLITE_MAX_VARIABLE_NUMBER before 3.32.0
+	static final int MAX_HOST_PARAMETERS = 999;
 
-	private final HashMap<String, byte[]> blobParameters = new HashMap<>();
+	private final SQLiteDatabase database;
+	private final PreparedQuery preparedQuery;
+	private final byte[] valueTypes;
+	private final long[] numericValues;
+	private final Object[] objectValues;
+	private boolean hasCollections;
+	private boolean isResultCached;
+	private boolean isChangeCounted;
+	private long parseNanos;
 
 	public SqLiteCommand(SQLiteDatabase database, String command) {
+		this(database, QueryCache.getPreparedQuery(command));
+	}
+
+	public SqLiteCommand(SQLiteDatabase database, PreparedQuery preparedQuery) {
 		this.database = database;
-		this.command = command;
+		this.preparedQuery = preparedQuery;
+
+		final int slotCount = preparedQuery.getSlotCount();
+		valueTypes = new byte[slotCount];
+		numericValues = new long[slotCount];
+		objectValues = new Object[slotCount];
+		parseNanos = preparedQuery.claimParseNanos();
 	}
 
 	public SqLiteCommand addParameter(String parameter, String value) {
-		parameters.put(parameter, value);
+		final int slot = preparedQuery.getSlot(parameter);
+		if (slot < 0) return this;
+
+		valueTypes[slot] = value != null ? STRING_VALUE : NULL_VALUE;
+		objectValues[slot] = value;
 		return this;
 	}
 
@@ -42,23 +86,35 @@ public class SqLiteCommand {
 	}
 
 	public SqLiteCommand addParameter(String parameter, short value) {
-		return addParameter(parameter, String.valueOf(value));
+		return addParameter(parameter, (long) value);
 	}
 
 	public SqLiteCommand addParameter(String parameter, int value) {
-		return addParameter(parameter, String.valueOf(value));
+		return addParameter(parameter, (long) value);
 	}
 
 	public SqLiteCommand addParameter(String parameter, long value) {
-		return addParameter(parameter, String.valueOf(value));
+		final int slot = preparedQuery.getSlot(parameter);
+		if (slot < 0) return this;
+
+		valueTypes[slot] = LONG_VALUE;
+		numericValues[slot] = value;
+		objectValues[slot] = null;
+		return this;
 	}
 
 	public SqLiteCommand addParameter(String parameter, float value) {
-		return addParameter(parameter, String.valueOf(value));
+		return addParameter(parameter, (double) value);
 	}
 
 	public SqLiteCommand addParameter(String parameter, double value) {
-		return addParameter(parameter, String.valueOf(value));
+		final int slot = preparedQuery.getSlot(parameter);
+		if (slot < 0) return this;
+
+		valueTypes[slot] = DOUBLE_VALUE;
+		numericValues[slot] = Double.doubleToRawLongBits(value);
+		objectValues[slot] = null;
+		return this;
 	}
 
 	public SqLiteCommand addParameter(String parameter, boolean value) {
@@ -72,62 +128,78 @@ public class SqLiteCommand {
 	}
 
 	public SqLiteCommand addParameter(String parameter, byte[] value) {
-		blobParameters.put(parameter, value);
+		final int slot = preparedQuery.getSlot(parameter);
+		if (slot < 0) return this;
+
+		valueTypes[slot] = value != null ? BLOB_VALUE : NULL_VALUE;
+		objectValues[slot] = value;
 		return this;
 	}
 
-	public SqLiteCommand addParameter(String parameter, Object value) {
-		if (addNullable(parameter, value)) {
-			return this;
-		}
+	public SqLiteCommand addParameter(String parameter, Collection<?> values) {
+		if (values == null) return addParameter(parameter, (String) null);
 
-		final Class<?> valueClass = value.getClass();
+		final Object[] bindValues = new Object[values.size()];
+		int i = 0;
+		for (Object value : values)
+			bindValues[i++] = toBindValue(value);
 
-		if (Boolean.TYPE.equals(valueClass)) {
-			addParameter(parameter, (boolean)value);
-			return this;
-		}
+		return addCollection(parameter, bindValues, bindValues.length);
+	}
 
-		if (Boolean.class.equals(valueClass)) {
-			addParameter(parameter, (Boolean) value);
-			return this;
-		}
+	public SqLiteCommand addParameter(String parameter, long[] values) {
+		return values != null
+			? addCollection(parameter, values, values.length)
+			: addParameter(parameter, (String) null);
+	}
+
+	public SqLiteCommand addParameter(String parameter, int[] values) {
+		if (values == null) return addParameter(parameter, (String) null);
+
+		final long[] longValues = new long[values.length];
+		for (int i = 0; i < values.length; i++)
+			longValues[i] = values[i];
 
-		if (Short.TYPE.equals(valueClass)) {
-			addParameter(parameter, (short)value);
-			return this;
+		return addCollection(parameter, longValues, longValues.length);
+	}
+
+	public SqLiteCommand addParameter(String parameter, double[] values) {
+		return values != null
+			? addCollection(parameter, values, values.length)
+			: addParameter(parameter, (String) null);
+	}
+
+	public SqLiteCommand addParameter(String parameter, Object value) {
+		if (value instanceof Collection) {
+			return addParameter(parameter, (Collection<?>) value);
 		}
 
-		if (Integer.TYPE.equals(valueClass)) {
-			addParameter(parameter, (int)value);
-			return this;
+		if (value instanceof long[]) {
+			return addParameter(parameter, (long[]) value);
 		}
 
-		if (Long.TYPE.equals(valueClass)) {
-			addParameter(parameter, (long)value);
-			return this;
+		if (value instanceof int[]) {
+			return addParameter(parameter, (int[]) value);
 		}
 
-		if (Float.TYPE.equals(valueClass)) {
-			addParameter(parameter, (float)value);
-			return this;
+		if (value instanceof double[]) {
+			return addParameter(parameter, (double[]) value);
 		}
 
-		if (Double.TYPE.equals(valueClass)) {
-			addParameter(parameter, (double)value);
-			return this;
+		final Object bindValue = toBindValue(value);
+		if (bindValue instanceof Long) {
+			return addParameter(parameter, ((Long) bindValue).longValue());
 		}
 
-		if (valueClass.isArray() && Byte.TYPE.equals(valueClass.getComponentType())) {
-			addParameter(parameter, (byte[]) value);
-			return this;
+		if (bindValue instanceof Double) {
+			return addParameter(parameter, ((Double) bindValue).doubleValue());
 		}
 
-		if (valueClass.isEnum()) {
-			addParameter(parameter, (Enum<?>) value);
+		if (bindValue instanceof byte[]) {
+			return addParameter(parameter, (byte[]) bindValue);
 		}
 
-		return addParameter(parameter, value.toString());
+		return addParameter(parameter, (String) bindValue);
 	}
 
 	public SqLiteCommand addParameters(Map<String, Object> parameters) {
@@ -141,249 +213,874 @@ public class SqLiteCommand {
 		return this;
 	}
 
+	/**
+	 * Binds the placeholders of the query from the matching public fields or getters of the bean. Placeholders without
+	 * a matching property are left as they are, so they can be added separately.
+	 */
+	@SuppressWarnings("unchecked")
+	public SqLiteCommand addParameters(Object bean) {
+		// Maps with other value types, or typed as Object, would otherwise be bound by their own getters
+		if (bean instanceof Map) return addParameters((Map<String, Object>) bean);
+
+		SqLiteAssistants.addParameters(this, preparedQuery, bean);
+		return this;
+	}
+
+	/**
+	 * Keeps the results of fetch and fetchFirst in the {@link ResultCache}, until a command writes to a table the query
+	 * reads. Cached results share their mapped objects between callers, so they should be treated as read-only.
+	 */
+	public SqLiteCommand withCachedResults() {
+		isResultCached = true;
+		return this;
+	}
+
 	public <T> List<T> fetch(Class<T> cls) throws SQLException {
+		return fetchRows(cls, false);
+	}
+
+	public <T> T fetchFirst(Class<T> cls) {
+		final List<T> rows = fetchRows(cls, true);
+		return rows.isEmpty() ? null : rows.get(0);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> List<T> fetchRows(Class<T> cls, boolean isFirstOnly) {
+		// Results read inside a transaction may yet be rolled back
+		if (!isResultCached || database.inTransaction()) return readRows(cls, isFirstOnly, null, null);
+
+		final ResultCache.ResultKey resultKey = new ResultCache.ResultKey(
+			database, preparedQuery.sqlQuery, cls, isFirstOnly, valueTypes, numericValues, objectValues);
+		final List<?> cachedRows = ResultCache.get(resultKey);
+		if (cachedRows != null) return new ArrayList<>((List<T>) cachedRows);
+
+		return readRows(cls, isFirstOnly, resultKey, ResultCache.getVersions(preparedQuery));
+	}
+
+	private <T> List<T> readRows(Class<T> cls, boolean isFirstOnly, ResultCache.ResultKey resultKey, ResultCache.Versions versions) {
+        final boolean isListened = QueryListeners.isEnabled();
+        final long startTime = isListened ? System.nanoTime() : 0;
         try (Cursor cursor = getCursorForQuery()) {
-            if (!cursor.moveToFirst()) return new ArrayList<>();
+            final boolean hasRows = cursor.moveToFirst();
+            final long mappingStartTime = isListened ? System.nanoTime() : 0;
+
+            final ArrayList<T> returnObjects;
+            if (!hasRows) {
+                returnObjects = new ArrayList<>();
+            } else {
+                final MapCursor<T> cursorMapper = getCursorMapper(cursor, cls);
+                returnObjects = new ArrayList<>(isFirstOnly ? 1 : cursor.getCount());
+                do {
+                    returnObjects.add(cursorMapper.map(cursor));
+                } while (!isFirstOnly && cursor.moveToNext());
+            }
+
+            if (isListened) {
+                onQueryCompleted(
+                    isFirstOnly ? QueryEvent.Operation.FETCH_FIRST : QueryEvent.Operation.FETCH,
+                    mappingStartTime - startTime,
+                    System.nanoTime() - mappingStartTime,
+                    returnObjects.size());
+            }
 
-            final ArrayList<T> returnObjects = new ArrayList<>(cursor.getCount());
-            do {
-                returnObjects.add(mapDataFromCursorToClass(cursor, cls));
-            } while (cursor.moveToNext());
+            if (resultKey != null)
+                ResultCache.put(resultKey, versions, new ArrayList<>(returnObjects), cursor.getColumnCount());
 
             return returnObjects;
         }
 	}
 
-	public <T> T fetchFirst(Class<T> cls) {
-        try (Cursor cursor = getCursorForQuery()) {
-            if (!cursor.moveToFirst() || cursor.getCount() == 0) return null;
+	/**
+	 * Reads the first column of every row, with nulls read as 0.
+	 */
+	public long[] fetchLongs() throws SQLException {
+		try (Cursor cursor = getCursorForQuery()) {
+			final long[] values = new long[cursor.getCount()];
+			for (int i = 0; cursor.moveToNext(); i++)
+				values[i] = cursor.getLong(0);
 
-            return mapDataFromCursorToClass(cursor, cls);
-        }
+			return values;
+		}
+	}
+
+	/**
+	 * Reads the first column of every row, with nulls read as 0.
+	 */
+	public int[] fetchInts() throws SQLException {
+		try (Cursor cursor = getCursorForQuery()) {
+			final int[] values = new int[cursor.getCount()];
+			for (int i = 0; cursor.moveToNext(); i++)
+				values[i] = cursor.getInt(0);
+
+			return values;
+		}
+	}
+
+	/**
+	 * Reads the first column of every row, with nulls read as 0.
+	 */
+	public double[] fetchDoubles() throws SQLException {
+		try (Cursor cursor = getCursorForQuery()) {
+			final double[] values = new double[cursor.getCount()];
+			for (int i = 0; cursor.moveToNext(); i++)
+				values[i] = cursor.getDouble(0);
+
+			return values;
+		}
+	}
+
+	/**
+	 * Builds parents with their children from a single joined query. Columns whose names start with the child column
+	 * prefix are mapped to the children, without the prefix, and the other columns to the parents. Rows are grouped
+	 * into one parent per value of the parent key column, and each child is added to the parent's children collection
+	 * property.
+	 */
+	public <P, C> List<P> fetchOneToMany(Class<P> parentCls, String parentKeyColumn, Class<C> childCls, String childColumnPrefix, String childrenProperty) throws SQLException {
+		final OneToManyMapper<P, C> mapper = new OneToManyMapper<>(parentCls, parentKeyColumn, childCls, childColumnPrefix, childrenProperty);
+		try (Cursor cursor = getCursorForQuery()) {
+			return mapper.map(cursor);
+		}
+	}
+
+	/**
+	 * Reads every column into a {@link ColumnarResult}, without mapping rows to objects.
+	 */
+	public ColumnarResult fetchColumns() throws SQLException {
+		try (Cursor cursor = getCursorForQuery()) {
+			return ColumnarResult.read(cursor);
+		}
+	}
+
+	/**
+	 * Reads the first column of the first row without opening a cursor.
+	 *
+	 * @throws android.database.sqlite.SQLiteDoneException if the query returns no rows
+	 */
+	public long fetchScalarLong() throws SQLException {
+		return queryScalar(SQLiteStatement::simpleQueryForLong);
+	}
+
+	/**
+	 * Reads the first column of the first row without opening a cursor.
+	 *
+	 * @throws android.database.sqlite.SQLiteDoneException if the query returns no rows
+	 */
+	public String fetchScalarString() throws SQLException {
+		return queryScalar(SQLiteStatement::simpleQueryForString);
+	}
+
+	public <T> KeysetPager<T> paginate(Class<T> cls, String keyColumn, int pageSize) {
+		return new KeysetPager<>(database, this, cls, keyColumn, pageSize, false);
+	}
+
+	public <T> KeysetPager<T> paginate(Class<T> cls, String keyColumn, int pageSize, boolean isDescending) {
+		return new KeysetPager<>(database, this, cls, keyColumn, pageSize, isDescending);
+	}
+
+	public <T> RowIterator<T> iterate(Class<T> cls) throws SQLException {
+		return new RowIterator<>(getCursorForQuery(), cls);
+	}
+
+	public <T> void forEach(Class<T> cls, RowConsumer<T> consumer) throws SQLException {
+		try (RowIterator<T> rowIterator = iterate(cls)) {
+			while (rowIterator.hasNext())
+				consumer.accept(rowIterator.next());
+		}
+	}
+
+	@RequiresApi(Build.VERSION_CODES.N)
+	public <T> Stream<T> stream(Class<T> cls) throws SQLException {
+		final RowIterator<T> rowIterator = iterate(cls);
+		return StreamSupport
+			.stream(Spliterators.spliteratorUnknownSize(rowIterator, Spliterator.ORDERED), false)
+			.onClose(rowIterator::close);
+	}
+
+	@RequiresApi(Build.VERSION_CODES.N)
+	public <T> CompletableFuture<List<T>> fetchAsync(Class<T> cls) {
+		return fetchAsync(cls, QueryExecutor.getDefault());
+	}
+
+	@RequiresApi(Build.VERSION_CODES.N)
+	public <T> CompletableFuture<List<T>> fetchAsync(Class<T> cls, QueryExecutor queryExecutor) {
+		final SqLiteCommand command = snapshot();
+		return CompletableFuture.supplyAsync(() -> command.fetch(cls), queryExecutor.getReadExecutor());
+	}
+
+	@RequiresApi(Build.VERSION_CODES.N)
+	public <T> CompletableFuture<T> fetchFirstAsync(Class<T> cls) {
+		return fetchFirstAsync(cls, QueryExecutor.getDefault());
+	}
+
+	@RequiresApi(Build.VERSION_CODES.N)
+	public <T> CompletableFuture<T> fetchFirstAsync(Class<T> cls, QueryExecutor queryExecutor) {
+		final SqLiteCommand command = snapshot();
+		return CompletableFuture.supplyAsync(() -> command.fetchFirst(cls), queryExecutor.getReadExecutor());
+	}
+
+	@RequiresApi(Build.VERSION_CODES.N)
+	public CompletableFuture<Long> executeAsync() {
+		return executeAsync(QueryExecutor.getDefault());
+	}
+
+	@RequiresApi(Build.VERSION_CODES.N)
+	public CompletableFuture<Long> executeAsync(QueryExecutor queryExecutor) {
+		final SqLiteCommand command = snapshot();
+		return CompletableFuture.supplyAsync(command::execute, queryExecutor.getWriteExecutor());
 	}
 
 	public long execute() throws SQLException {
-		final Pair<String, Object[]> compatibleSqlQuery = QueryCache.getSqlQuery(command, parameters, blobParameters);
+		if (!QueryListeners.isEnabled()) return executeAll();
 
-		final String sqlQuery = compatibleSqlQuery.first;
+		final long startTime = System.nanoTime();
+		final long result = executeAll();
+		onExecuteCompleted(System.nanoTime() - startTime, result);
+		return result;
+	}
 
-		try (SQLiteStatement sqLiteStatement = database.compileStatement(sqlQuery)) {
-			final Object[] args = compatibleSqlQuery.second;
-			for (int i = 0; i < args.length; i++) {
-				final Object arg = args[i];
-				final int bindingIndex = i + 1;
-				if (arg == null) {
-					sqLiteStatement.bindNull(bindingIndex);
-					continue;
-				}
+	private long executeAll() {
+		if (!hasCollections) return execute(null, -1, 0, 0);
 
-				if (arg instanceof String) {
-					sqLiteStatement.bindString(bindingIndex, (String)arg);
-					continue;
-				}
+		final int splitSlot = getSplitSlot();
+		if (splitSlot < 0) return execute(getSlotLengths(-1, 0), -1, 0, 0);
 
-				if (arg instanceof byte[]) {
-					final byte[] byteArray = (byte[]) arg;
-					sqLiteStatement.bindBlob(bindingIndex, byteArray);
-					continue;
-				}
+		prepareSplit(splitSlot, preparedQuery.commandType == PreparedQuery.CommandType.UPDATE_OR_DELETE);
+
+		final int valueCount = (int) numericValues[splitSlot];
+		final int chunkSize = getChunkSize(splitSlot);
+		long result = 0;
+
+		// Every chunk commits together, or none of them do
+		database.beginTransaction();
+		try {
+			for (int offset = 0; offset < valueCount; offset += chunkSize) {
+				final int count = Math.min(chunkSize, valueCount - offset);
+				result += execute(getSlotLengths(splitSlot, count), splitSlot, offset, count);
+			}
+
+			database.setTransactionSuccessful();
+		} finally {
+			database.endTransaction();
+		}
+
+		if (!database.inTransaction()) ResultCache.invalidateTransactionWrites();
+
+		return result;
+	}
+
+	long execute(Map<String, SQLiteStatement> compiledStatements) throws SQLException {
+		if (hasCollections) return execute();
+
+		final String sqlQuery = preparedQuery.sqlQuery;
+		SQLiteStatement sqLiteStatement = compiledStatements.get(sqlQuery);
+		if (sqLiteStatement == null) {
+			sqLiteStatement = database.compileStatement(sqlQuery);
+			compiledStatements.put(sqlQuery, sqLiteStatement);
+		} else {
+			sqLiteStatement.clearBindings();
+		}
+
+		final boolean isListened = QueryListeners.isEnabled();
+		final long startTime = isListened ? System.nanoTime() : 0;
+
+		bindArguments(sqLiteStatement, null, -1, 0, 0);
+		final long result = executeSpecial(sqLiteStatement, getExecutedCommandType());
+		ResultCache.invalidate(preparedQuery, database);
+
+		if (isListened) onExecuteCompleted(System.nanoTime() - startTime, result);
+
+		return result;
+	}
+
+	private void onExecuteCompleted(long executeNanos, long result) {
+		final long rowCount;
+		switch (getExecutedCommandType()) {
+			case UPDATE_OR_DELETE:
+				rowCount = result;
+				break;
+			case INSERT:
+				rowCount = result >= 0 ? 1 : 0;
+				break;
+			default:
+				rowCount = 0;
+		}
+
+		onQueryCompleted(QueryEvent.Operation.EXECUTE, executeNanos, 0, rowCount);
+	}
+
+	private void onQueryCompleted(QueryEvent.Operation operation, long executeNanos, long mappingNanos, long rowCount) {
+		// Only the first execution of a command reports the time it spent parsing
+		final long parseNanos = this.parseNanos;
+		this.parseNanos = -1;
+
+		QueryListeners.onQueryCompleted(
+			database,
+			new QueryEvent(preparedQuery.commandText, operation, Math.max(parseNanos, 0), parseNanos < 0, executeNanos, mappingNanos, rowCount));
+	}
+
+	private long execute(int[] slotLengths, int splitSlot, int splitOffset, int splitCount) {
+		final String sqlQuery = slotLengths != null ? preparedQuery.getExpandedSqlQuery(slotLengths) : preparedQuery.sqlQuery;
+		final SQLiteStatement sqLiteStatement = StatementCache.acquire(database, sqlQuery);
+		try {
+			bindArguments(sqLiteStatement, slotLengths, splitSlot, splitOffset, splitCount);
+			final long result = executeSpecial(sqLiteStatement, getExecutedCommandType());
+			ResultCache.invalidate(preparedQuery, database);
+			return result;
+		} finally {
+			StatementCache.release(database, sqlQuery, sqLiteStatement);
+		}
+	}
+
+	private <R> R queryScalar(QueryStatement<R> queryStatement) {
+		if (hasCollections && getSplitSlot() > -1)
+			throw new IllegalArgumentException("The query \"" + preparedQuery.sqlQuery + "\" binds more than " + MAX_HOST_PARAMETERS + " parameters, which can't be split for a scalar query.");
 
-				sqLiteStatement.bindString(bindingIndex, arg.toString());
+		final int[] slotLengths = hasCollections ? getSlotLengths(-1, 0) : null;
+		final String sqlQuery = slotLengths != null ? preparedQuery.getExpandedSqlQuery(slotLengths) : preparedQuery.sqlQuery;
+		final SQLiteStatement sqLiteStatement = StatementCache.acquire(database, sqlQuery);
+		try {
+			bindArguments(sqLiteStatement, slotLengths, -1, 0, 0);
+			return queryStatement.query(sqLiteStatement);
+		} finally {
+			StatementCache.release(database, sqlQuery, sqLiteStatement);
+		}
+	}
+
+	private interface QueryStatement<R> {
+		R query(SQLiteStatement sqLiteStatement);
+	}
+
+	private void bindArguments(SQLiteProgram sqLiteProgram, int[] slotLengths, int splitSlot, int splitOffset, int splitCount) {
+		int bindingIndex = 0;
+		for (int slot : preparedQuery.placeholderSlots) {
+			switch (valueTypes[slot]) {
+				case LONG_VALUE:
+					sqLiteProgram.bindLong(++bindingIndex, numericValues[slot]);
+					break;
+				case DOUBLE_VALUE:
+					sqLiteProgram.bindDouble(++bindingIndex, Double.longBitsToDouble(numericValues[slot]));
+					break;
+				case STRING_VALUE:
+					sqLiteProgram.bindString(++bindingIndex, (String) objectValues[slot]);
+					break;
+				case BLOB_VALUE:
+					sqLiteProgram.bindBlob(++bindingIndex, (byte[]) objectValues[slot]);
+					break;
+				case COLLECTION_VALUE:
+					final Object values = objectValues[slot];
+					final int offset = slot == splitSlot ? splitOffset : 0;
+					final int count = slot == splitSlot ? splitCount : (int) numericValues[slot];
+					final int bucketSize = slotLengths[slot];
+
+					// Pad the bucket by repeating the last value, which doesn't change the meaning of an IN list
+					for (int i = 0; i < bucketSize; i++)
+						bindCollectionValue(sqLiteProgram, ++bindingIndex, values, offset + Math.min(i, count - 1));
+					break;
+				default:
+					sqLiteProgram.bindNull(++bindingIndex);
 			}
+		}
+	}
+
+	/**
+	 * Makes execute return the number of changed rows instead of the id of the last inserted row, for inserts that can
+	 * update an existing row instead.
+	 */
+	SqLiteCommand countChanges() {
+		isChangeCounted = true;
+		return this;
+	}
+
+	private PreparedQuery.CommandType getExecutedCommandType() {
+		return isChangeCounted ? PreparedQuery.CommandType.UPDATE_OR_DELETE : preparedQuery.commandType;
+	}
 
-			return executeSpecial(sqLiteStatement, sqlQuery);
+	String getCommandText() {
+		return preparedQuery.commandText;
+	}
+
+	/**
+	 * Copies the command so that it can run on another thread while this one continues to be changed.
+	 */
+	SqLiteCommand snapshot() {
+		final SqLiteCommand command = new SqLiteCommand(database, preparedQuery);
+		copyParametersTo(command);
+		command.isChangeCounted = isChangeCounted;
+		command.isResultCached = isResultCached;
+		command.parseNanos = parseNanos;
+		// The parse is reported once, by whichever copy runs first
+		parseNanos = -1;
+		return command;
+	}
+
+	void copyParametersTo(SqLiteCommand command) {
+		if (command.preparedQuery == preparedQuery) {
+			System.arraycopy(valueTypes, 0, command.valueTypes, 0, valueTypes.length);
+			System.arraycopy(numericValues, 0, command.numericValues, 0, numericValues.length);
+			System.arraycopy(objectValues, 0, command.objectValues, 0, objectValues.length);
+			command.hasCollections = hasCollections;
+			return;
+		}
+
+		for (int slot = 0; slot < valueTypes.length; slot++) {
+			final int targetSlot = command.preparedQuery.getSlot(preparedQuery.getSlotName(slot));
+			if (targetSlot < 0) continue;
+
+			command.valueTypes[targetSlot] = valueTypes[slot];
+			command.numericValues[targetSlot] = numericValues[slot];
+			command.objectValues[targetSlot] = objectValues[slot];
 		}
+
+		command.hasCollections |= hasCollections;
+	}
+
+	private SqLiteCommand addCollection(String parameter, Object values, int length) {
+		final int slot = preparedQuery.getSlot(parameter);
+		if (slot < 0) return this;
+
+		valueTypes[slot] = COLLECTION_VALUE;
+		numericValues[slot] = length;
+		objectValues[slot] = values;
+		hasCollections = true;
+		return this;
 	}
 
 	private boolean addNullable(String parameter, Object value) {
 		if (value == null) {
-			parameters.put(parameter, null);
+			addParameter(parameter, (String) null);
 			return true;
 		}
 
 		return false;
 	}
 
-	private Cursor getCursorForQuery() {
-		final Pair<String, String[]> compatibleSqlQuery = QueryCache.getSqlQuery(command, parameters);
+	/**
+	 * Finds the collection to split across statements when the query would bind more than
+	 * {@link #MAX_HOST_PARAMETERS} values, or -1 when the query fits into one statement.
+	 */
+	private int getSplitSlot() {
+		int parameterCount = 0;
+		int largestCollectionSlot = -1;
+		for (int slot : preparedQuery.placeholderSlots) {
+			if (valueTypes[slot] != COLLECTION_VALUE) {
+				++parameterCount;
+				continue;
+			}
+
+			parameterCount += (int) numericValues[slot];
+			if (largestCollectionSlot < 0 || numericValues[slot] > numericValues[largestCollectionSlot])
+				largestCollectionSlot = slot;
+		}
 
-		return database.rawQuery(compatibleSqlQuery.first, compatibleSqlQuery.second);
+		return parameterCount > MAX_HOST_PARAMETERS ? largestCollectionSlot : -1;
 	}
 
-	@SuppressWarnings({"unchecked", "rawtypes"})
-    private static <T> T mapDataFromCursorToClass(Cursor cursor, Class<T> cls) {
-		if (cls == String.class && cursor.getColumnCount() == 1) {
-			return (T) cursor.getString(0);
+	SQLiteDatabase getDatabase() {
+		return database;
+	}
+
+	boolean isSplit() {
+		return hasCollections && getSplitSlot() > -1;
+	}
+
+	/**
+	 * Checks that running the query once per chunk of the collection gives the same result as running it once, and
+	 * removes duplicate values from the collection, so that no row is read or changed by more than one chunk.
+	 */
+	private void prepareSplit(int splitSlot, boolean isSplitOperation) {
+		if (!isSplitOperation || !preparedQuery.canSplit(splitSlot)) {
+			throw new IllegalArgumentException("The query \"" + preparedQuery.sqlQuery + "\" binds more than " + MAX_HOST_PARAMETERS + " parameters. "
+				+ "It can only be split when it is a SELECT, UPDATE, or DELETE whose WHERE clause filters a column with a single IN list, "
+				+ "joined to its other conditions with AND, and without OR, ORDER BY, LIMIT, DISTINCT, GROUP BY, compound selects, or aggregates.");
 		}
 
-		if (cursor.getColumnCount() == 1) {
-			AbstractSynchronousLazy<PrimitiveParsers.ParsePrimitive<?>> parser = PrimitiveParsers.parsers.getObject().get(cls);
-			if (parser != null) {
-				return ((PrimitiveParsers.ParsePrimitive<T>)parser.getObject()).parse(cursor.getString(0));
+		final Object values = objectValues[splitSlot];
+		final int valueCount = (int) numericValues[splitSlot];
+		if (values instanceof long[]) {
+			final long[] sortedValues = Arrays.copyOf((long[]) values, valueCount);
+			Arrays.sort(sortedValues);
+			int distinctCount = 0;
+			for (int i = 0; i < sortedValues.length; i++) {
+				if (i == 0 || sortedValues[i] != sortedValues[i - 1]) sortedValues[distinctCount++] = sortedValues[i];
 			}
 
-			if (cls.isEnum()) {
-				return (T)Enum.valueOf((Class<? extends Enum>) cls, cursor.getString(0));
-			}
+			objectValues[splitSlot] = sortedValues;
+			numericValues[splitSlot] = distinctCount;
+			return;
+		}
 
-			if (cls == byte[].class && cursor.getType(0) == Cursor.FIELD_TYPE_BLOB) {
-				return (T) cursor.getBlob(0);
+		if (values instanceof double[]) {
+			final double[] sortedValues = Arrays.copyOf((double[]) values, valueCount);
+			Arrays.sort(sortedValues);
+			int distinctCount = 0;
+			for (int i = 0; i < sortedValues.length; i++) {
+				if (i == 0 || Double.compare(sortedValues[i], sortedValues[i - 1]) != 0) sortedValues[distinctCount++] = sortedValues[i];
 			}
+
+			objectValues[splitSlot] = sortedValues;
+			numericValues[splitSlot] = distinctCount;
+			return;
 		}
 
-		final ClassReflections reflections = ClassCache.getReflections(cls);
+		final LinkedHashSet<Object> distinctValues = new LinkedHashSet<>(Arrays.asList((Object[]) values).subList(0, valueCount));
+		objectValues[splitSlot] = distinctValues.toArray();
+		numericValues[splitSlot] = distinctValues.size();
+	}
 
-		final T newObject;
-		try {
-			newObject = cls.newInstance();
-		} catch (InstantiationException | IllegalAccessException e) {
-			throw new RuntimeException(e);
+	private int getChunkSize(int splitSlot) {
+		int fixedParameterCount = 0;
+		int splitPlaceholderCount = 0;
+		for (int slot : preparedQuery.placeholderSlots) {
+			if (slot == splitSlot) ++splitPlaceholderCount;
+			else if (valueTypes[slot] == COLLECTION_VALUE) fixedParameterCount += getBucketSize((int) numericValues[slot]);
+			else ++fixedParameterCount;
 		}
 
-        for (int i = 0; i < cursor.getColumnCount(); i++) {
-			String colName = cursor.getColumnName(i).toLowerCase(Locale.ROOT);
+		final int availableParameters = (MAX_HOST_PARAMETERS - fixedParameterCount) / splitPlaceholderCount;
+		if (availableParameters < 1)
+			throw new IllegalArgumentException("The query \"" + preparedQuery.sqlQuery + "\" binds more than " + MAX_HOST_PARAMETERS + " parameters and cannot be split.");
 
-			final Map<String, ISetter> setterMap = reflections.setterMap.getObject();
-			if (setterMap.containsKey(colName)) {
-				final ISetter setter = setterMap.get(colName);
-				if (setter == null) continue;
+		return Integer.highestOneBit(availableParameters);
+	}
 
-				final int columnType = cursor.getType(i);
-				if (columnType != Cursor.FIELD_TYPE_BLOB)
-					setter.set(newObject, cursor.getString(i));
-				else
-					setter.set(newObject, cursor.getBlob(i));
+	/**
+	 * Gets the number of placeholders for each collection, padded to a power of two while the padding still fits
+	 * within {@link #MAX_HOST_PARAMETERS}, and -1 for every other slot.
+	 */
+	private int[] getSlotLengths(int splitSlot, int splitCount) {
+		final int[] slotLengths = new int[valueTypes.length];
+		final int[] slotUsages = new int[valueTypes.length];
+		int parameterCount = 0;
+		for (int slot : preparedQuery.placeholderSlots) {
+			++slotUsages[slot];
+			parameterCount += valueTypes[slot] != COLLECTION_VALUE
+				? 1
+				: slot == splitSlot ? splitCount : (int) numericValues[slot];
+		}
+
+		int remainingPadding = MAX_HOST_PARAMETERS - parameterCount;
+		for (int slot = 0; slot < slotLengths.length; slot++) {
+			if (valueTypes[slot] != COLLECTION_VALUE) {
+				slotLengths[slot] = -1;
 				continue;
 			}
 
-			if (!colName.startsWith("is")) continue;
+			final int count = slot == splitSlot ? splitCount : (int) numericValues[slot];
+			final int bucketSize = getBucketSize(count);
+			final int padding = (bucketSize - count) * slotUsages[slot];
+			if (padding <= remainingPadding) {
+				slotLengths[slot] = bucketSize;
+				remainingPadding -= padding;
+			} else {
+				slotLengths[slot] = count;
+			}
+		}
+
+		return slotLengths;
+	}
+
+	Cursor getCursorForQuery() {
+		if (!hasCollections) return getCursorForQuery(null, -1, 0, 0);
+
+		final int splitSlot = getSplitSlot();
+		if (splitSlot < 0) return getCursorForQuery(getSlotLengths(-1, 0), -1, 0, 0);
 
-			colName = colName.substring(2);
-			final ISetter setter = setterMap.get(colName);
-			if (setter != null) {
-				final int columnType = cursor.getType(i);
-				if (columnType != Cursor.FIELD_TYPE_BLOB)
-					setter.set(newObject, cursor.getString(i));
-				else
-					setter.set(newObject, cursor.getBlob(i));
+		prepareSplit(splitSlot, preparedQuery.isSelect());
+
+		final int valueCount = (int) numericValues[splitSlot];
+		final int chunkSize = getChunkSize(splitSlot);
+		final Cursor[] cursors = new Cursor[(valueCount + chunkSize - 1) / chunkSize];
+		try {
+			for (int i = 0; i < cursors.length; i++) {
+				final int offset = i * chunkSize;
+				final int count = Math.min(chunkSize, valueCount - offset);
+				cursors[i] = getCursorForQuery(getSlotLengths(splitSlot, count), splitSlot, offset, count);
 			}
+		} catch (RuntimeException e) {
+			for (Cursor cursor : cursors) {
+				if (cursor != null) cursor.close();
+			}
+
+			throw e;
 		}
 
-		return newObject;
+		return new MergeCursor(cursors);
 	}
 
-	private static long executeSpecial(SQLiteStatement sqLiteStatement, String sqlQuery) {
-		final String sqlQueryType = sqlQuery.trim().substring(0, 3).toLowerCase(Locale.ROOT);
-		if (sqlQueryType.equals("upd") || sqlQueryType.equals("del"))
-			return sqLiteStatement.executeUpdateDelete();
-		if (sqlQueryType.equals("ins"))
-			return sqLiteStatement.executeInsert();
-		return sqLiteStatement.simpleQueryForLong();
+	private Cursor getCursorForQuery(int[] slotLengths, int splitSlot, int splitOffset, int splitCount) {
+		final String sqlQuery = slotLengths != null ? preparedQuery.getExpandedSqlQuery(slotLengths) : preparedQuery.sqlQuery;
+		return database.rawQueryWithFactory(
+			(db, masterQuery, editTable, query) -> {
+				bindArguments(query, slotLengths, splitSlot, splitOffset, splitCount);
+				return new SQLiteCursor(masterQuery, editTable, query);
+			},
+			sqlQuery,
+			null,
+			null);
 	}
 
-	private static class QueryCache extends AbstractSynchronousLazy<Pair<String, String[]>> {
+	private static int getBucketSize(int count) {
+		return count <= 1 ? count : Integer.highestOneBit(count - 1) << 1;
+	}
+
+	private static Object toBindValue(Object value) {
+		if (value == null || value instanceof String || value instanceof Long || value instanceof Double || value instanceof byte[]) {
+			return value;
+		}
 
-		private static final Map<String, AbstractSynchronousLazy<Pair<String, String[]>>> queryCache = new ConcurrentHashMap<>();
+		if (value instanceof Boolean) {
+			return (Boolean) value ? 1L : 0L;
+		}
 
-		static Pair<String, Object[]> getSqlQuery(String sqlQuery, Map<String, String> parameters, Map<String, byte[]> blobParameters) {
-			return getOrderedSqlParameters(getOrAddSqlQuery(sqlQuery), parameters, blobParameters);
+		if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			return ((Number) value).longValue();
 		}
 
-		static Pair<String, String[]> getSqlQuery(String sqlQuery, Map<String, String> parameters) {
-			return getOrderedSqlParameters(getOrAddSqlQuery(sqlQuery), parameters);
+		if (value instanceof Float) {
+			return ((Number) value).doubleValue();
 		}
 
-		private static Pair<String, String[]> getOrAddSqlQuery(String sqlQuery) {
-			sqlQuery = sqlQuery.trim();
-			if (queryCache.containsKey(sqlQuery))
-				return Objects.requireNonNull(queryCache.get(sqlQuery)).getObject();
+		if (value instanceof Enum) {
+			return ((Enum<?>) value).name();
+		}
 
-			queryCache.put(sqlQuery, new QueryCache(sqlQuery));
+		return value.toString();
+	}
 
-			return Objects.requireNonNull(queryCache.get(sqlQuery)).getObject();
+	private static void bindCollectionValue(SQLiteProgram sqLiteProgram, int bindingIndex, Object values, int index) {
+		if (values instanceof long[]) {
+			sqLiteProgram.bindLong(bindingIndex, ((long[]) values)[index]);
+			return;
 		}
 
-		private static Pair<String, String[]> getOrderedSqlParameters(Pair<String, String[]> cachedQuery, Map<String, String> parameters) {
-			final String[] parameterHolders = cachedQuery.second;
-			final String[] newParameters = new String[parameterHolders.length];
-			for (int i = 0; i < parameterHolders.length; i++) {
-				final String parameterName = parameterHolders[i];
-				if (parameters.containsKey(parameterName)) {
-					final String parameterValue = parameters.get(parameterName);
-					newParameters[i] = parameterValue;
-				}
-			}
+		if (values instanceof double[]) {
+			sqLiteProgram.bindDouble(bindingIndex, ((double[]) values)[index]);
+			return;
+		}
 
-			return new Pair<>(cachedQuery.first, newParameters);
+		final Object value = ((Object[]) values)[index];
+		if (value instanceof Long) {
+			sqLiteProgram.bindLong(bindingIndex, (Long) value);
+		} else if (value instanceof Double) {
+			sqLiteProgram.bindDouble(bindingIndex, (Double) value);
+		} else if (value instanceof String) {
+			sqLiteProgram.bindString(bindingIndex, (String) value);
+		} else if (value instanceof byte[]) {
+			sqLiteProgram.bindBlob(bindingIndex, (byte[]) value);
+		} else {
+			sqLiteProgram.bindNull(bindingIndex);
 		}
+	}
 
-		private static Pair<String, Object[]> getOrderedSqlParameters(Pair<String, String[]> cachedQuery, Map<String, String> parameters, Map<String, byte[]> blobParameters) {
-			final String[] parameterHolders = cachedQuery.second;
-			final Object[] newParameters = new Object[parameterHolders.length];
-			for (int i = 0; i < parameterHolders.length; i++) {
-				final String parameterName = parameterHolders[i];
-				if (parameters.containsKey(parameterName)) {
-					final String parameterValue = parameters.get(parameterName);
-					newParameters[i] = parameterValue;
-					continue;
-				}
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	static <T> MapCursor<T> getCursorMapper(Cursor cursor, Class<T> cls) {
+		if (cursor.getColumnCount() == 1) {
+			if (cls == String.class) {
+				return c -> (T) c.getString(0);
+			}
 
-				if (blobParameters.containsKey(parameterName)) {
-					final byte[] blobValue = blobParameters.get(parameterName);
-					newParameters[i] = blobValue;
-				}
+			AbstractSynchronousLazy<PrimitiveReaders.ReadPrimitive<?>> reader = PrimitiveReaders.readers.getObject().get(cls);
+			if (reader != null) {
+				final PrimitiveReaders.ReadPrimitive<T> primitiveReader = (PrimitiveReaders.ReadPrimitive<T>)reader.getObject();
+				return c -> primitiveReader.read(c, 0);
+			}
+
+			if (cls.isEnum()) {
+				return c -> c.isNull(0) ? null : (T)Enum.valueOf((Class<? extends Enum>) cls, c.getString(0));
 			}
 
-			return new Pair<>(cachedQuery.first, newParameters);
+			if (cls == byte[].class && cursor.getType(0) == Cursor.FIELD_TYPE_BLOB) {
+				return c -> (T) c.getBlob(0);
+			}
 		}
 
-		// Cached SQL Factory
+		final SqLiteMappings.CachedMapping<T> generatedMapping = SqLiteMappings.getMapping(cls);
+		if (generatedMapping != null)
+			return new GeneratedMapper<>(generatedMapping.mapping, generatedMapping.getColumnSetterIndexes(cursor));
 
-		private final String sqlQuery;
+		final ConstructorMappings.ConstructorMapping<T> constructorMapping = ConstructorMappings.getMapping(cls);
+		if (constructorMapping != null)
+			return constructorMapping.newMapper(cursor);
+
+		final ClassReflections reflections = ClassCache.getReflections(cls);
+		return new ObjectMapper<>(cls, reflections.getColumnSetters(cursor));
+	}
 
-		private QueryCache(String sqlQuery) {
-			this.sqlQuery = sqlQuery;
+	interface ReadColumn<T> {
+		T read(Cursor cursor, int columnIndex);
+	}
+
+	/**
+	 * Gets a reader of column values of the given type, or null if the type can't be read from a column.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	static ReadColumn<?> getColumnReader(Class<?> type) {
+		final AbstractSynchronousLazy<PrimitiveReaders.ReadPrimitive<?>> reader = PrimitiveReaders.readers.getObject().get(type);
+		if (reader != null) {
+			final PrimitiveReaders.ReadPrimitive<?> primitiveReader = reader.getObject();
+			return primitiveReader::read;
+		}
+
+		if (type == String.class)
+			return (cursor, columnIndex) -> cursor.getString(columnIndex);
+
+		if (type == byte[].class)
+			return (cursor, columnIndex) -> cursor.isNull(columnIndex) ? null : cursor.getBlob(columnIndex);
+
+		if (type.isEnum())
+			return (cursor, columnIndex) -> cursor.isNull(columnIndex) ? null : Enum.valueOf((Class<? extends Enum>) type, cursor.getString(columnIndex));
+
+		return null;
+	}
+
+	public interface RowConsumer<T> {
+		void accept(T row);
+	}
+
+	public static class RowIterator<T> implements Iterator<T>, Closeable {
+		private final Cursor cursor;
+		private final Class<T> cls;
+
+		private MapCursor<T> cursorMapper;
+		private boolean isRowPending;
+
+		private RowIterator(Cursor cursor, Class<T> cls) {
+			this.cursor = cursor;
+			this.cls = cls;
 		}
 
 		@Override
-		protected Pair<String, String[]> create() {
-			final ArrayList<String> sqlParameters = new ArrayList<>();
-			final StringBuilder sqlQueryBuilder = new StringBuilder(sqlQuery);
-			int paramIndex;
+		public boolean hasNext() {
+			if (isRowPending) return true;
+			if (cursor.isClosed()) return false;
+
+			isRowPending = cursor.moveToNext();
+			if (!isRowPending) {
+				close();
+				return false;
+			}
 
-			for (int i = 0; i < sqlQueryBuilder.length(); i++) {
-				final char queryChar = sqlQueryBuilder.charAt(i);
+			if (cursorMapper == null)
+				cursorMapper = getCursorMapper(cursor, cls);
 
-				if (queryChar == '\'') {
-					i = sqlQueryBuilder.indexOf("'", ++i);
+			return true;
+		}
 
-					if (i < 0) break;
+		@Override
+		public T next() {
+			if (!hasNext()) throw new NoSuchElementException();
 
-					continue;
-				}
+			isRowPending = false;
+			return cursorMapper.map(cursor);
+		}
+
+		@Override
+		public void close() {
+			cursor.close();
+		}
+	}
 
-				if (queryChar != '@') continue;
+	interface MapCursor<T> {
+		T map(Cursor cursor);
+	}
 
-				paramIndex = i;
-				final StringBuilder paramStringBuilder = new StringBuilder();
-				while (++paramIndex < sqlQueryBuilder.length()) {
-					final char paramChar = sqlQueryBuilder.charAt(paramIndex);
+	private static class ObjectMapper<T> implements MapCursor<T> {
+		private final Class<T> cls;
+		private final ISetter[] columnSetters;
 
-					// A parameter needs to look like a Java identifier
-					if (paramIndex == i + 1 && !Character.isJavaIdentifierStart(paramChar)) break;
-					if (!Character.isJavaIdentifierPart(paramChar)) break;
+		ObjectMapper(Class<T> cls, ISetter[] columnSetters) {
+			this.cls = cls;
+			this.columnSetters = columnSetters;
+		}
 
-					paramStringBuilder.append(paramChar);
-				}
+		@Override
+		public T map(Cursor cursor) {
+			final T newObject;
+			try {
+				newObject = cls.newInstance();
+			} catch (InstantiationException | IllegalAccessException e) {
+				throw new RuntimeException(e);
+			}
 
-				sqlParameters.add(paramStringBuilder.toString());
-				sqlQueryBuilder.replace(paramIndex - paramStringBuilder.length() - 1, paramIndex, "?");
+			for (int i = 0; i < columnSetters.length; i++) {
+				final ISetter setter = columnSetters[i];
+				if (setter != null)
+					setter.set(newObject, cursor, i);
 			}
 
-			return new Pair<>(sqlQueryBuilder.toString(), sqlParameters.toArray(new String[0]));
+			return newObject;
 		}
 	}
 
+	private static class GeneratedMapper<T> implements MapCursor<T> {
+		private final SqLiteMapping<T> mapping;
+		private final int[] columnSetterIndexes;
+
+		GeneratedMapper(SqLiteMapping<T> mapping, int[] columnSetterIndexes) {
+			this.mapping = mapping;
+			this.columnSetterIndexes = columnSetterIndexes;
+		}
+
+		@Override
+		public T map(Cursor cursor) {
+			final T newObject = mapping.newInstance();
+
+			for (int i = 0; i < columnSetterIndexes.length; i++) {
+				final int setterIndex = columnSetterIndexes[i];
+				if (setterIndex > -1)
+					mapping.setColumn(newObject, setterIndex, cursor, i);
+			}
+
+			return newObject;
+		}
+	}
+
+	private static long executeSpecial(SQLiteStatement sqLiteStatement, PreparedQuery.CommandType commandType) {
+		switch (commandType) {
+			case UPDATE_OR_DELETE:
+				return sqLiteStatement.executeUpdateDelete();
+			case INSERT:
+				return sqLiteStatement.executeInsert();
+			default:
+				return sqLiteStatement.simpleQueryForLong();
+		}
+	}
+
+	/**
+	 * Sets the id of the target with the same setters used to map fetched rows.
+	 *
+	 * @return false if the target has no id to set
+	 */
+	@SuppressWarnings("unchecked")
+	static boolean setGeneratedId(Object target, long id) {
+		final SqLiteMappings.CachedMapping<Object> generatedMapping = SqLiteMappings.getMapping((Class<Object>) target.getClass());
+		if (generatedMapping != null) {
+			final int setterIndex = generatedMapping.getSetterIndex("id");
+			if (setterIndex < 0) return false;
+
+			generatedMapping.mapping.setLong(target, setterIndex, id);
+			return true;
+		}
+
+		final ISetter setter = ClassCache.getReflections(target.getClass()).setterMap.getObject().get("id");
+		if (setter == null) return false;
+
+		setter.setLong(target, id);
+		return true;
+	}
+
+	private static Object fromLong(Class<?> type, long value) {
+		if (type == Long.TYPE || type == Long.class) return value;
+		if (type == Integer.TYPE || type == Integer.class) return (int) value;
+		if (type == Short.TYPE || type == Short.class) return (short) value;
+		if (type == Double.TYPE || type == Double.class) return (double) value;
+		if (type == Float.TYPE || type == Float.class) return (float) value;
+		if (type == Boolean.TYPE || type == Boolean.class) return value != 0;
+		if (type == String.class) return String.valueOf(value);
+
+		throw new IllegalArgumentException("A " + type.getName() + " cannot be set from a long.");
+	}
+
 	private static class ClassCache {
 		private static final Map<Class<?>, ClassReflections> classCache = new ConcurrentHashMap<>();
 
@@ -396,9 +1093,9 @@ public class SqLiteCommand {
 	}
 
 	private interface ISetter {
-		void set(Object object, String value);
+		void set(Object object, Cursor cursor, int columnIndex);
 
-		void set(Object object, byte[] value);
+		void setLong(Object object, long value);
 	}
 
 	private static class ClassReflections {
@@ -412,52 +1109,89 @@ public class SqLiteCommand {
 					final HashMap<String, ISetter> newMap = new HashMap<>();
 
 					for (final Field f : cls.getFields()) {
-						newMap.put(f.getName().toLowerCase(Locale.ROOT), new FieldSetter(f));
+						newMap.put(f.getName().toLowerCase(Locale.ROOT), FieldSetter.create(f));
 					}
 
 					// prepare methods. Methods will override fields, if both exists.
 					for (final Method m : cls.getMethods()) {
 						if (m.getParameterTypes().length == 1 && m.getName().startsWith("set"))
-							newMap.put(m.getName().substring(3).toLowerCase(Locale.ROOT), new MethodSetter(m));
+							newMap.put(m.getName().substring(3).toLowerCase(Locale.ROOT), MethodSetter.create(m));
 					}
 
 					return newMap;
 				}
 			};
 		}
+
+		ISetter[] getColumnSetters(Cursor cursor) {
+			final Map<String, ISetter> setterMap = this.setterMap.getObject();
+			final ISetter[] columnSetters = new ISetter[cursor.getColumnCount()];
+			for (int i = 0; i < columnSetters.length; i++) {
+				String colName = cursor.getColumnName(i).toLowerCase(Locale.ROOT);
+
+				if (setterMap.containsKey(colName)) {
+					columnSetters[i] = setterMap.get(colName);
+					continue;
+				}
+
+				if (!colName.startsWith("is")) continue;
+
+				colName = colName.substring(2);
+				columnSetters[i] = setterMap.get(colName);
+			}
+
+			return columnSetters;
+		}
+	}
+
+	private static <S> S findTypedAccessor(Map<?, AbstractSynchronousLazy<S>> accessors, Class<?> type) {
+		Class<?> currentType = type;
+		while (currentType != null && currentType != Object.class) {
+			final AbstractSynchronousLazy<S> accessor = accessors.get(currentType);
+			if (accessor != null) return accessor.getObject();
+
+			currentType = currentType.getSuperclass();
+		}
+
+		return null;
+	}
+
+	private static void makeAccessible(AccessibleObject accessibleObject) {
+		try {
+			accessibleObject.setAccessible(true);
+		} catch (RuntimeException ignored) {
+			// Fall back to checked access, which is still correct for public members.
+		}
 	}
 
 	private static class FieldSetter implements ISetter {
 		private final Field field;
-		private final Class<?> type;
+		private final SetFields setFields;
 
-		FieldSetter(Field field) {
-			this.field = field;
-			type = field.getType();
+		static ISetter create(Field field) {
+			final SetFields setFields = findTypedAccessor(setters.getObject(), field.getType());
+			if (setFields == null) return null;
+
+			makeAccessible(field);
+			return new FieldSetter(field, setFields);
 		}
 
-		public void set(Object object, String value) {
-			Class<?> currentType = type;
+		private FieldSetter(Field field, SetFields setFields) {
+			this.field = field;
+			this.setFields = setFields;
+		}
 
-			while (currentType != Object.class) {
-				final HashMap<Type, AbstractSynchronousLazy<SetFields>> setters = FieldSetter.setters.getObject();
-				final AbstractSynchronousLazy<SetFields> setter = setters.get(currentType);
-				if (setter != null) {
-					setter.getObject().setFromString(field, object, value);
-					break;
-				}
-				currentType = type.getSuperclass();
-			}
+		@Override
+		public void set(Object object, Cursor cursor, int columnIndex) {
+			setFields.setFromCursor(field, object, cursor, columnIndex);
 		}
 
 		@Override
-		public void set(Object object, byte[] value) {
-			if (type == byte[].class) {
-				try {
-					field.set(object, value);
-				} catch (IllegalAccessException e) {
-					throw new RuntimeException(e);
-				}
+		public void setLong(Object object, long value) {
+			try {
+				field.set(object, fromLong(field.getType(), value));
+			} catch (IllegalAccessException e) {
+				throw new RuntimeException(e);
 			}
 		}
 
@@ -470,10 +1204,10 @@ public class SqLiteCommand {
 				newHashMap.put(Boolean.TYPE, new AbstractSynchronousLazy<>() {
 					@Override
 					protected SetFields create() {
-						return (field, target, value) -> {
+						return (field, target, cursor, columnIndex) -> {
 							try {
-								if (isSqlValueNotNull(value))
-									field.setBoolean(target, parseSqlBoolean(value));
+								if (!cursor.isNull(columnIndex))
+									field.setBoolean(target, cursor.getInt(columnIndex) != 0);
 							} catch (IllegalAccessException e) {
 								throw new RuntimeException(e);
 							}
@@ -484,9 +1218,9 @@ public class SqLiteCommand {
 				newHashMap.put(Boolean.class, new AbstractSynchronousLazy<>() {
 					@Override
 					protected SetFields create() {
-						return (field, target, value) -> {
+						return (field, target, cursor, columnIndex) -> {
 							try {
-								field.set(target, isSqlValueNotNull(value) ? parseSqlBoolean(value) : null);
+								field.set(target, cursor.isNull(columnIndex) ? null : cursor.getInt(columnIndex) != 0);
 							} catch (IllegalAccessException e) {
 								throw new RuntimeException(e);
 							}
@@ -497,10 +1231,10 @@ public class SqLiteCommand {
 				newHashMap.put(Short.TYPE, new AbstractSynchronousLazy<>() {
 					@Override
 					protected SetFields create() {
-						return (field, target, value) -> {
+						return (field, target, cursor, columnIndex) -> {
 							try {
-								if (isSqlValueNotNull(value))
-									field.setShort(target, Short.parseShort(value));
+								if (!cursor.isNull(columnIndex))
+									field.setShort(target, cursor.getShort(columnIndex));
 							} catch (IllegalAccessException e) {
 								throw new RuntimeException(e);
 							}
@@ -511,9 +1245,9 @@ public class SqLiteCommand {
 				newHashMap.put(Short.class, new AbstractSynchronousLazy<>() {
 					@Override
 					protected SetFields create() {
-						return (field, target, value) -> {
+						return (field, target, cursor, columnIndex) -> {
 							try {
-								field.set(target, isSqlValueNotNull(value) ? Short.parseShort(value) : null);
+								field.set(target, cursor.isNull(columnIndex) ? null : cursor.getShort(columnIndex));
 							} catch (IllegalAccessException e) {
 								throw new RuntimeException(e);
 							}
@@ -524,10 +1258,10 @@ public class SqLiteCommand {
 				newHashMap.put(Integer.TYPE, new AbstractSynchronousLazy<>() {
 					@Override
 					protected SetFields create() {
-						return (field, target, value) -> {
+						return (field, target, cursor, columnIndex) -> {
 							try {
-								if (isSqlValueNotNull(value))
-									field.setInt(target, Integer.parseInt(value));
+								if (!cursor.isNull(columnIndex))
+									field.setInt(target, cursor.getInt(columnIndex));
 							} catch (IllegalAccessException e) {
 								throw new RuntimeException(e);
 							}
@@ -538,9 +1272,9 @@ public class SqLiteCommand {
 				newHashMap.put(Integer.class, new AbstractSynchronousLazy<>() {
 					@Override
 					protected SetFields create() {
-						return (field, target, value) -> {
+						return (field, target, cursor, columnIndex) -> {
 							try {
-								field.set(target, isSqlValueNotNull(value) ? Integer.parseInt(value) : null);
+								field.set(target, cursor.isNull(columnIndex) ? null : cursor.getInt(columnIndex));
 							} catch (IllegalAccessException e) {
 								throw new RuntimeException(e);
 							}
@@ -551,10 +1285,10 @@ public class SqLiteCommand {
 				newHashMap.put(Long.TYPE, new AbstractSynchronousLazy<>() {
 					@Override
 					protected SetFields create() {
-						return (field, target, value) -> {
+						return (field, target, cursor, columnIndex) -> {
 							try {
-								if (isSqlValueNotNull(value))
-									field.setLong(target, Long.parseLong(value));
+								if (!cursor.isNull(columnIndex))
+									field.setLong(target, cursor.getLong(columnIndex));
 							} catch (IllegalAccessException e) {
 								throw new RuntimeException(e);
 							}
@@ -565,9 +1299,9 @@ public class SqLiteCommand {
 				newHashMap.put(Long.class, new AbstractSynchronousLazy<>() {
 					@Override
 					protected SetFields create() {
-						return (field, target, value) -> {
+						return (field, target, cursor, columnIndex) -> {
 							try {
-								field.set(target, isSqlValueNotNull(value) ? Long.parseLong(value) : null);
+								field.set(target, cursor.isNull(columnIndex) ? null : cursor.getLong(columnIndex));
 							} catch (IllegalAccessException e) {
 								throw new RuntimeException(e);
 							}
@@ -578,10 +1312,10 @@ public class SqLiteCommand {
 				newHashMap.put(Float.TYPE, new AbstractSynchronousLazy<>() {
 					@Override
 					protected SetFields create() {
-						return (field, target, value) -> {
+						return (field, target, cursor, columnIndex) -> {
 							try {
-								if (isSqlValueNotNull(value))
-									field.setFloat(target, Float.parseFloat(value));
+								if (!cursor.isNull(columnIndex))
+									field.setFloat(target, cursor.getFloat(columnIndex));
 							} catch (IllegalAccessException e) {
 								throw new RuntimeException(e);
 							}
@@ -592,9 +1326,9 @@ public class SqLiteCommand {
 				newHashMap.put(Float.class, new AbstractSynchronousLazy<>() {
 					@Override
 					protected SetFields create() {
-						return (field, target, value) -> {
+						return (field, target, cursor, columnIndex) -> {
 							try {
-								field.set(target, isSqlValueNotNull(value) ? Float.parseFloat(value) : null);
+								field.set(target, cursor.isNull(columnIndex) ? null : cursor.getFloat(columnIndex));
 							} catch (IllegalAccessException e) {
 								throw new RuntimeException(e);
 							}
@@ -605,10 +1339,10 @@ public class SqLiteCommand {
 				newHashMap.put(Double.TYPE, new AbstractSynchronousLazy<>() {
 					@Override
 					protected SetFields create() {
-						return (field, target, value) -> {
+						return (field, target, cursor, columnIndex) -> {
 							try {
-								if (isSqlValueNotNull(value))
-									field.setDouble(target, Double.parseDouble(value));
+								if (!cursor.isNull(columnIndex))
+									field.setDouble(target, cursor.getDouble(columnIndex));
 							} catch (IllegalAccessException e) {
 								throw new RuntimeException(e);
 							}
@@ -619,9 +1353,9 @@ public class SqLiteCommand {
 				newHashMap.put(Double.class, new AbstractSynchronousLazy<>() {
 					@Override
 					protected SetFields create() {
-						return (field, target, value) -> {
+						return (field, target, cursor, columnIndex) -> {
 							try {
-								field.set(target, isSqlValueNotNull(value) ? Double.parseDouble(value) : null);
+								field.set(target, cursor.isNull(columnIndex) ? null : cursor.getDouble(columnIndex));
 							} catch (IllegalAccessException e) {
 								throw new RuntimeException(e);
 							}
@@ -632,9 +1366,22 @@ public class SqLiteCommand {
 				newHashMap.put(String.class, new AbstractSynchronousLazy<>() {
 					@Override
 					protected SetFields create() {
-						return (field, target, value) -> {
+						return (field, target, cursor, columnIndex) -> {
+							try {
+								field.set(target, cursor.getString(columnIndex));
+							} catch (IllegalAccessException e) {
+								throw new RuntimeException(e);
+							}
+						};
+					}
+				});
+
+				newHashMap.put(byte[].class, new AbstractSynchronousLazy<>() {
+					@Override
+					protected SetFields create() {
+						return (field, target, cursor, columnIndex) -> {
 							try {
-								field.set(target, value);
+								field.set(target, cursor.getBlob(columnIndex));
 							} catch (IllegalAccessException e) {
 								throw new RuntimeException(e);
 							}
@@ -645,10 +1392,10 @@ public class SqLiteCommand {
 				newHashMap.put(Enum.class, new AbstractSynchronousLazy<>() {
 					@Override
 					protected SetFields create() {
-						return (field, target, value) -> {
+						return (field, target, cursor, columnIndex) -> {
 							try {
-								if (isSqlValueNotNull(value))
-									field.set(target, Enum.valueOf((Class<? extends Enum>) field.getType(), value));
+								if (!cursor.isNull(columnIndex))
+									field.set(target, Enum.valueOf((Class<? extends Enum>) field.getType(), cursor.getString(columnIndex)));
 							} catch (IllegalAccessException e) {
 								throw new RuntimeException(e);
 							}
@@ -661,41 +1408,40 @@ public class SqLiteCommand {
 		};
 
 		private interface SetFields {
-			void setFromString(Field field, Object target, String value);
+			void setFromCursor(Field field, Object target, Cursor cursor, int columnIndex);
 		}
 	}
 
     @SuppressWarnings({"unchecked", "rawtypes"})
     private static class MethodSetter implements ISetter {
 		private final Method method;
-		private final Class<?> type;
+		private final SetMethods setMethods;
+
+		static ISetter create(Method method) {
+			final SetMethods setMethods = findTypedAccessor(setters.getObject(), method.getParameterTypes()[0]);
+			if (setMethods == null) return null;
+
+			makeAccessible(method);
+			return new MethodSetter(method, setMethods);
+		}
 
-		MethodSetter(Method method) {
+		private MethodSetter(Method method, SetMethods setMethods) {
 			this.method = method;
-			type = method.getParameterTypes()[0];
+			this.setMethods = setMethods;
 		}
 
-		public void set(Object object, String value) {
-			Class<?> currentType = type;
-			while (currentType != Object.class) {
-				final AbstractSynchronousLazy<SetMethods> setter = setters.getObject().get(currentType);
-				if (setter != null) {
-					setter.getObject().setFromString(method, object, value);
-					break;
-				}
-				currentType = type.getSuperclass();
-			}
+		@Override
+		public void set(Object object, Cursor cursor, int columnIndex) {
+			setMethods.setFromCursor(method, object, cursor, columnIndex);
 		}
 
 		@Override
-		public void set(Object object, byte[] value) {
-			if (type == byte[].class) {
-				try {
-					method.invoke(object, (Object) value);
-				} catch (IllegalAccessException | InvocationTargetException e) {
-					throw new RuntimeException(e);
-				}
-            }
+		public void setLong(Object object, long value) {
+			try {
+				method.invoke(object, fromLong(method.getParameterTypes()[0], value));
+			} catch (IllegalAccessException | InvocationTargetException e) {
+				throw new RuntimeException(e);
+			}
 		}
 
 		private static final AbstractSynchronousLazy<HashMap<Class<?>, AbstractSynchronousLazy<SetMethods>>> setters = new AbstractSynchronousLazy<>() {
@@ -706,10 +1452,10 @@ public class SqLiteCommand {
 				newHashMap.put(Boolean.TYPE, new AbstractSynchronousLazy<>() {
 					@Override
 					protected SetMethods create() {
-						return (method, target, value) -> {
+						return (method, target, cursor, columnIndex) -> {
 							try {
-								if (isSqlValueNotNull(value))
-									method.invoke(target, parseSqlBoolean(value));
+								if (!cursor.isNull(columnIndex))
+									method.invoke(target, cursor.getInt(columnIndex) != 0);
 							} catch (IllegalAccessException | InvocationTargetException e) {
 								throw new RuntimeException(e);
 							}
@@ -720,9 +1466,9 @@ public class SqLiteCommand {
 				newHashMap.put(Boolean.class, new AbstractSynchronousLazy<>() {
 					@Override
 					protected SetMethods create() {
-						return (method, target, value) -> {
+						return (method, target, cursor, columnIndex) -> {
 							try {
-								method.invoke(target, isSqlValueNotNull(value) ? parseSqlBoolean(value) : null);
+								method.invoke(target, cursor.isNull(columnIndex) ? null : cursor.getInt(columnIndex) != 0);
 							} catch (IllegalAccessException | InvocationTargetException e) {
 								throw new RuntimeException(e);
 							}
@@ -733,10 +1479,10 @@ public class SqLiteCommand {
 				newHashMap.put(Short.TYPE, new AbstractSynchronousLazy<>() {
 					@Override
 					protected SetMethods create() {
-						return (method, target, value) -> {
+						return (method, target, cursor, columnIndex) -> {
 							try {
-								if (isSqlValueNotNull(value))
-									method.invoke(target, Short.parseShort(value));
+								if (!cursor.isNull(columnIndex))
+									method.invoke(target, cursor.getShort(columnIndex));
 							} catch (IllegalAccessException | InvocationTargetException e) {
 								throw new RuntimeException(e);
 							}
@@ -747,9 +1493,9 @@ public class SqLiteCommand {
 				newHashMap.put(Short.class, new AbstractSynchronousLazy<>() {
 					@Override
 					protected SetMethods create() {
-						return (method, target, value) -> {
+						return (method, target, cursor, columnIndex) -> {
 							try {
-								method.invoke(target, isSqlValueNotNull(value) ? Short.parseShort(value) : null);
+								method.invoke(target, cursor.isNull(columnIndex) ? null : cursor.getShort(columnIndex));
 							} catch (IllegalAccessException | InvocationTargetException e) {
 								throw new RuntimeException(e);
 							}
@@ -760,10 +1506,10 @@ public class SqLiteCommand {
 				newHashMap.put(Integer.TYPE, new AbstractSynchronousLazy<>() {
 					@Override
 					protected SetMethods create() {
-						return (method, target, value) -> {
+						return (method, target, cursor, columnIndex) -> {
 							try {
-								if (isSqlValueNotNull(value))
-									method.invoke(target, Integer.parseInt(value));
+								if (!cursor.isNull(columnIndex))
+									method.invoke(target, cursor.getInt(columnIndex));
 							} catch (IllegalAccessException | InvocationTargetException e) {
 								throw new RuntimeException(e);
 							}
@@ -774,9 +1520,9 @@ public class SqLiteCommand {
 				newHashMap.put(Integer.class, new AbstractSynchronousLazy<>() {
 					@Override
 					protected SetMethods create() {
-						return (method, target, value) -> {
+						return (method, target, cursor, columnIndex) -> {
 							try {
-								method.invoke(target, isSqlValueNotNull(value) ? Integer.parseInt(value) : null);
+								method.invoke(target, cursor.isNull(columnIndex) ? null : cursor.getInt(columnIndex));
 							} catch (IllegalAccessException | InvocationTargetException e) {
 								throw new RuntimeException(e);
 							}
@@ -787,10 +1533,10 @@ public class SqLiteCommand {
 				newHashMap.put(Long.TYPE, new AbstractSynchronousLazy<>() {
 					@Override
 					protected SetMethods create() {
-						return (method, target, value) -> {
+						return (method, target, cursor, columnIndex) -> {
 							try {
-								if (isSqlValueNotNull(value))
-									method.invoke(target, Long.parseLong(value));
+								if (!cursor.isNull(columnIndex))
+									method.invoke(target, cursor.getLong(columnIndex));
 							} catch (IllegalAccessException | InvocationTargetException e) {
 								throw new RuntimeException(e);
 							}
@@ -801,9 +1547,9 @@ public class SqLiteCommand {
 				newHashMap.put(Long.class, new AbstractSynchronousLazy<>() {
 					@Override
 					protected SetMethods create() {
-						return (method, target, value) -> {
+						return (method, target, cursor, columnIndex) -> {
 							try {
-								method.invoke(target, isSqlValueNotNull(value) ? Long.parseLong(value) : null);
+								method.invoke(target, cursor.isNull(columnIndex) ? null : cursor.getLong(columnIndex));
 							} catch (IllegalAccessException | InvocationTargetException e) {
 								throw new RuntimeException(e);
 							}
@@ -814,10 +1560,10 @@ public class SqLiteCommand {
 				newHashMap.put(Float.TYPE, new AbstractSynchronousLazy<>() {
 					@Override
 					protected SetMethods create() {
-						return (method, target, value) -> {
+						return (method, target, cursor, columnIndex) -> {
 							try {
-								if (isSqlValueNotNull(value))
-									method.invoke(target, Float.parseFloat(value));
+								if (!cursor.isNull(columnIndex))
+									method.invoke(target, cursor.getFloat(columnIndex));
 							} catch (IllegalAccessException | InvocationTargetException e) {
 								throw new RuntimeException(e);
 							}
@@ -828,9 +1574,9 @@ public class SqLiteCommand {
 				newHashMap.put(Float.class, new AbstractSynchronousLazy<>() {
 					@Override
 					protected SetMethods create() {
-						return (method, target, value) -> {
+						return (method, target, cursor, columnIndex) -> {
 							try {
-								method.invoke(target, isSqlValueNotNull(value) ? Float.parseFloat(value) : null);
+								method.invoke(target, cursor.isNull(columnIndex) ? null : cursor.getFloat(columnIndex));
 							} catch (IllegalAccessException | InvocationTargetException e) {
 								throw new RuntimeException(e);
 							}
@@ -841,10 +1587,10 @@ public class SqLiteCommand {
 				newHashMap.put(Double.TYPE, new AbstractSynchronousLazy<>() {
 					@Override
 					protected SetMethods create() {
-						return (method, target, value) -> {
+						return (method, target, cursor, columnIndex) -> {
 							try {
-								if (isSqlValueNotNull(value))
-									method.invoke(target, Double.parseDouble(value));
+								if (!cursor.isNull(columnIndex))
+									method.invoke(target, cursor.getDouble(columnIndex));
 							} catch (IllegalAccessException | InvocationTargetException e) {
 								throw new RuntimeException(e);
 							}
@@ -855,9 +1601,9 @@ public class SqLiteCommand {
 				newHashMap.put(Double.class, new AbstractSynchronousLazy<>() {
 					@Override
 					protected SetMethods create() {
-						return (method, target, value) -> {
+						return (method, target, cursor, columnIndex) -> {
 							try {
-								method.invoke(target, isSqlValueNotNull(value) ? Double.parseDouble(value) : null);
+								method.invoke(target, cursor.isNull(columnIndex) ? null : cursor.getDouble(columnIndex));
 							} catch (IllegalAccessException | InvocationTargetException e) {
 								throw new RuntimeException(e);
 							}
@@ -868,9 +1614,22 @@ public class SqLiteCommand {
 				newHashMap.put(String.class, new AbstractSynchronousLazy<>() {
 					@Override
 					protected SetMethods create() {
-						return (method, target, value) -> {
+						return (method, target, cursor, columnIndex) -> {
+							try {
+								method.invoke(target, cursor.getString(columnIndex));
+							} catch (IllegalAccessException | InvocationTargetException e) {
+								throw new RuntimeException(e);
+							}
+                        };
+					}
+				});
+
+				newHashMap.put(byte[].class, new AbstractSynchronousLazy<>() {
+					@Override
+					protected SetMethods create() {
+						return (method, target, cursor, columnIndex) -> {
 							try {
-								method.invoke(target, value);
+								method.invoke(target, (Object) cursor.getBlob(columnIndex));
 							} catch (IllegalAccessException | InvocationTargetException e) {
 								throw new RuntimeException(e);
 							}
@@ -881,10 +1640,10 @@ public class SqLiteCommand {
 				newHashMap.put(Enum.class, new AbstractSynchronousLazy<>() {
 					@Override
 					protected SetMethods create() {
-						return (method, target, value) -> {
+						return (method, target, cursor, columnIndex) -> {
 							try {
-								if (isSqlValueNotNull(value))
-									method.invoke(target, Enum.valueOf((Class<? extends Enum>) method.getParameterTypes()[0], value));
+								if (!cursor.isNull(columnIndex))
+									method.invoke(target, Enum.valueOf((Class<? extends Enum>) method.getParameterTypes()[0], cursor.getString(columnIndex)));
 							} catch (IllegalAccessException | InvocationTargetException e) {
 								throw new RuntimeException(e);
 							}
@@ -897,52 +1656,59 @@ public class SqLiteCommand {
 		};
 
 		private interface SetMethods {
-			void setFromString(Method method, Object target, String value);
+			void setFromCursor(Method method, Object target, Cursor cursor, int columnIndex);
 		}
 	}
 
-	private static class PrimitiveParsers {
-		interface ParsePrimitive<T> {
-			T parse(String value);
+	private static class PrimitiveReaders {
+		interface ReadPrimitive<T> {
+			T read(Cursor cursor, int columnIndex);
 		}
 
-		static final AbstractSynchronousLazy<HashMap<Class<?>, AbstractSynchronousLazy<ParsePrimitive<?>>>> parsers = new AbstractSynchronousLazy<>() {
+		static final AbstractSynchronousLazy<HashMap<Class<?>, AbstractSynchronousLazy<ReadPrimitive<?>>>> readers = new AbstractSynchronousLazy<>() {
 
 			@Override
-			protected HashMap<Class<?>, AbstractSynchronousLazy<ParsePrimitive<?>>> create() {
-				final HashMap<Class<?>, AbstractSynchronousLazy<ParsePrimitive<?>>> map = new HashMap<>();
+			protected HashMap<Class<?>, AbstractSynchronousLazy<ReadPrimitive<?>>> create() {
+				final HashMap<Class<?>, AbstractSynchronousLazy<ReadPrimitive<?>>> map = new HashMap<>();
 				map.put(Boolean.TYPE, new AbstractSynchronousLazy<>() {
                     @Override
-                    protected ParsePrimitive<?> create() {
-                        return SqLiteCommand::parseSqlBoolean;
+                    protected ReadPrimitive<?> create() {
+                        return (cursor, columnIndex) -> cursor.isNull(columnIndex) ? null : cursor.getInt(columnIndex) != 0;
                     }
                 });
 				map.put(Boolean.class, map.get(Boolean.TYPE));
+				map.put(Short.TYPE, new AbstractSynchronousLazy<>() {
+					@Override
+					protected ReadPrimitive<?> create() {
+						return (cursor, columnIndex) -> cursor.isNull(columnIndex) ? null : cursor.getShort(columnIndex);
+					}
+				});
+				map.put(Short.class, map.get(Short.TYPE));
 				map.put(Integer.TYPE, new AbstractSynchronousLazy<>() {
 					@Override
-					protected ParsePrimitive<?> create() {
-						return Integer::parseInt;
+					protected ReadPrimitive<?> create() {
+						return (cursor, columnIndex) -> cursor.isNull(columnIndex) ? null : cursor.getInt(columnIndex);
 					}
 				});
 				map.put(Integer.class, map.get(Integer.TYPE));
 				map.put(Long.TYPE, new AbstractSynchronousLazy<>() {
                     @Override
-                    protected ParsePrimitive<?> create() {
-                        return Long::parseLong;
+                    protected ReadPrimitive<?> create() {
+                        return (cursor, columnIndex) -> cursor.isNull(columnIndex) ? null : cursor.getLong(columnIndex);
                     }
                 });
 				map.put(Long.class, map.get(Long.TYPE));
 				map.put(Float.TYPE, new AbstractSynchronousLazy<>() {
                     @Override
-                    protected ParsePrimitive<?> create() {
-                        return Float::parseFloat;
+                    protected ReadPrimitive<?> create() {
+                        return (cursor, columnIndex) -> cursor.isNull(columnIndex) ? null : cursor.getFloat(columnIndex);
                     }
                 });
 				map.put(Float.class, map.get(Float.TYPE));
 				map.put(Double.TYPE, new AbstractSynchronousLazy<>() {
                     @Override
-                    protected ParsePrimitive<?> create() {
-                        return Double::parseDouble;
+                    protected ReadPrimitive<?> create() {
+                        return (cursor, columnIndex) -> cursor.isNull(columnIndex) ? null : cursor.getDouble(columnIndex);
                     }
                 });
 				map.put(Double.class, map.get(Double.TYPE));
@@ -951,12 +1717,4 @@ public class SqLiteCommand {
 		};
 
 	}
-
-	private static boolean parseSqlBoolean(String booleanValue) {
-		return Integer.parseInt(booleanValue) != 0;
-	}
-
-	private static boolean isSqlValueNotNull(String sqlValue) {
-		return sqlValue != null && !"NULL".equals(sqlValue);
-	}
 }
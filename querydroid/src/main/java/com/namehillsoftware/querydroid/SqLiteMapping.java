@@ -0,0 +1,28 @@
+package com.namehillsoftware.querydroid;
+
+import android.database.Cursor;
+
+/**
+ * Implemented by classes generated for types annotated with {@link GenerateMapping}. Generated mappings are
+ * preferred over reflection when fetching, inserting, and updating values.
+ */
+public interface SqLiteMapping<T> {
+	String MAPPING_SUFFIX = "_QueryDroidMapping";
+
+	String[] getSetterColumns();
+
+	T newInstance();
+
+	void setColumn(T target, int setterIndex, Cursor cursor, int columnIndex);
+
+	/**
+	 * Sets a column from a long, such as the row id generated by an insert.
+	 *
+	 * @throws IllegalArgumentException if the column's type can't hold a long
+	 */
+	void setLong(T target, int setterIndex, long value);
+
+	String[] getGetterColumns();
+
+	void addParameters(T source, SqLiteCommand command);
+}
@@ -0,0 +1,74 @@
+package com.namehillsoftware.querydroid;
+
+import android.database.Cursor;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+class SqLiteMappings {
+
+	private static final Map<Class<?>, CachedMapping<?>> mappingCache = new ConcurrentHashMap<>();
+
+	private static final CachedMapping<?> noMapping = new CachedMapping<>(null);
+
+	@SuppressWarnings("unchecked")
+	static <T> CachedMapping<T> getMapping(Class<T> cls) {
+		CachedMapping<?> cachedMapping = mappingCache.get(cls);
+		if (cachedMapping == null) {
+			cachedMapping = findGeneratedMapping(cls);
+			mappingCache.put(cls, cachedMapping);
+		}
+
+		return cachedMapping != noMapping ? (CachedMapping<T>) cachedMapping : null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> CachedMapping<?> findGeneratedMapping(Class<T> cls) {
+		try {
+			final Class<?> mappingClass = Class.forName(cls.getName() + SqLiteMapping.MAPPING_SUFFIX, true, cls.getClassLoader());
+			if (!SqLiteMapping.class.isAssignableFrom(mappingClass)) return noMapping;
+
+			return new CachedMapping<>((SqLiteMapping<T>) mappingClass.getDeclaredConstructor().newInstance());
+		} catch (ClassNotFoundException e) {
+			return noMapping;
+		} catch (ReflectiveOperationException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	static class CachedMapping<T> {
+		final SqLiteMapping<T> mapping;
+		private final Map<String, Integer> setterIndexes = new HashMap<>();
+
+		private CachedMapping(SqLiteMapping<T> mapping) {
+			this.mapping = mapping;
+			if (mapping == null) return;
+
+			final String[] setterColumns = mapping.getSetterColumns();
+			for (int i = 0; i < setterColumns.length; i++)
+				setterIndexes.put(setterColumns[i], i);
+		}
+
+		int getSetterIndex(String column) {
+			final Integer setterIndex = setterIndexes.get(column);
+			return setterIndex != null ? setterIndex : -1;
+		}
+
+		int[] getColumnSetterIndexes(Cursor cursor) {
+			final int[] columnSetterIndexes = new int[cursor.getColumnCount()];
+			for (int i = 0; i < columnSetterIndexes.length; i++) {
+				String colName = cursor.getColumnName(i).toLowerCase(Locale.ROOT);
+
+				Integer setterIndex = setterIndexes.get(colName);
+				if (setterIndex == null && colName.startsWith("is"))
+					setterIndex = setterIndexes.get(colName.substring(2));
+
+				columnSetterIndexes[i] = setterIndex != null ? setterIndex : -1;
+			}
+
+			return columnSetterIndexes;
+		}
+	}
+}
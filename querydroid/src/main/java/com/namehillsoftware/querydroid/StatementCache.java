@@ -0,0 +1,151 @@
+package com.namehillsoftware.querydroid;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Pair;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded LRU cache of compiled statements, keyed by database and SQL. A cached statement is checked out by one
+ * caller at a time, so concurrent callers never share a statement's bindings.
+ *
+ * SQLite already caches prepared statements per connection; this cache keeps the {@link SQLiteStatement} objects, which
+ * saves acquiring a connection and looking the statement up again each time one is created. Statements reference their
+ * database, so the statements of a closed database are closed and dropped by the next cache operation on any database;
+ * call {@link #clear(SQLiteDatabase)} before closing a database to release them right away.
+ */
+public final class StatementCache {
+
+	private static final int defaultCapacity = 32;
+
+	private static final LinkedHashMap<Pair<SQLiteDatabase, String>, SQLiteStatement> statements = new LinkedHashMap<>(16, .75f, true);
+	private static final HashMap<SQLiteDatabase, Integer> databaseStatementCounts = new HashMap<>();
+
+	private static int capacity = defaultCapacity;
+	private static long hits;
+	private static long misses;
+	private static long evictions;
+
+	private StatementCache() {}
+
+	public static synchronized void setCapacity(int capacity) {
+		if (capacity < 0) throw new IllegalArgumentException("capacity must not be negative.");
+
+		StatementCache.capacity = capacity;
+		evictOverflow();
+	}
+
+	public static synchronized int getCapacity() {
+		return capacity;
+	}
+
+	public static synchronized CacheStatistics getStatistics() {
+		return new CacheStatistics(hits, misses, evictions, statements.size());
+	}
+
+	public static void clear(SQLiteDatabase database) {
+		final ArrayList<SQLiteStatement> removedStatements = new ArrayList<>();
+		synchronized (StatementCache.class) {
+			final Iterator<Map.Entry<Pair<SQLiteDatabase, String>, SQLiteStatement>> iterator = statements.entrySet().iterator();
+			while (iterator.hasNext()) {
+				final Map.Entry<Pair<SQLiteDatabase, String>, SQLiteStatement> entry = iterator.next();
+				if (entry.getKey().first != database) continue;
+
+				removedStatements.add(entry.getValue());
+				iterator.remove();
+			}
+
+			databaseStatementCounts.remove(database);
+		}
+
+		for (SQLiteStatement statement : removedStatements)
+			statement.close();
+	}
+
+	static SQLiteStatement acquire(SQLiteDatabase database, String sqlQuery) {
+		synchronized (StatementCache.class) {
+			evictClosedDatabases();
+
+			final SQLiteStatement statement = statements.remove(new Pair<>(database, sqlQuery));
+			if (statement != null) {
+				++hits;
+				removeStatementCount(database);
+				return statement;
+			}
+
+			++misses;
+		}
+
+		return database.compileStatement(sqlQuery);
+	}
+
+	static void release(SQLiteDatabase database, String sqlQuery, SQLiteStatement statement) {
+		statement.clearBindings();
+
+		synchronized (StatementCache.class) {
+			evictClosedDatabases();
+
+			final Pair<SQLiteDatabase, String> key = new Pair<>(database, sqlQuery);
+			// If another caller already released the same statement, keep theirs.
+			if (capacity > 0 && database.isOpen() && !statements.containsKey(key)) {
+				statements.put(key, statement);
+				final Integer statementCount = databaseStatementCounts.get(database);
+				databaseStatementCounts.put(database, statementCount != null ? statementCount + 1 : 1);
+				evictOverflow();
+				return;
+			}
+		}
+
+		statement.close();
+	}
+
+	private static void evictOverflow() {
+		final Iterator<Map.Entry<Pair<SQLiteDatabase, String>, SQLiteStatement>> iterator = statements.entrySet().iterator();
+		while (statements.size() > capacity && iterator.hasNext()) {
+			final Map.Entry<Pair<SQLiteDatabase, String>, SQLiteStatement> entry = iterator.next();
+			iterator.remove();
+			removeStatementCount(entry.getKey().first);
+			entry.getValue().close();
+			++evictions;
+		}
+	}
+
+	private static void removeStatementCount(SQLiteDatabase database) {
+		final Integer statementCount = databaseStatementCounts.get(database);
+		if (statementCount == null) return;
+
+		if (statementCount > 1) databaseStatementCounts.put(database, statementCount - 1);
+		else databaseStatementCounts.remove(database);
+	}
+
+	/**
+	 * Checks each database with cached statements, which are few, and only walks the statements when one has closed.
+	 */
+	private static void evictClosedDatabases() {
+		boolean hasClosedDatabase = false;
+		final Iterator<SQLiteDatabase> databaseIterator = databaseStatementCounts.keySet().iterator();
+		while (databaseIterator.hasNext()) {
+			if (databaseIterator.next().isOpen()) continue;
+
+			databaseIterator.remove();
+			hasClosedDatabase = true;
+		}
+
+		if (!hasClosedDatabase) return;
+
+		final Iterator<Map.Entry<Pair<SQLiteDatabase, String>, SQLiteStatement>> iterator = statements.entrySet().iterator();
+		while (iterator.hasNext()) {
+			final Map.Entry<Pair<SQLiteDatabase, String>, SQLiteStatement> entry = iterator.next();
+			if (entry.getKey().first.isOpen()) continue;
+
+			iterator.remove();
+			entry.getValue().close();
+			++evictions;
+		}
+	}
+}
@@ -0,0 +1,200 @@
+package com.namehillsoftware.querydroid;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
+
+import androidx.annotation.RequiresApi;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups writes submitted from any thread into shared transactions, so that many small writes pay for one commit.
+ * Writes arriving within the batch window, up to the maximum batch size, are committed together. Each write completes
+ * its own future, and a failing write does not fail the others in its group: once a write fails, the group is rolled back
+ * and the rest of its writes run once more, each in its own transaction.
+ */
+@RequiresApi(Build.VERSION_CODES.N)
+public final class WriteQueue implements Closeable {
+
+	public interface WriteOperation {
+		long write(SQLiteDatabase database);
+	}
+
+	private static final int defaultMaxBatchSize = 64;
+	private static final long defaultBatchWindowMillis = 5;
+
+	private final LinkedBlockingQueue<PendingWrite> pendingWrites = new LinkedBlockingQueue<>();
+	private final SQLiteDatabase database;
+	private final int maxBatchSize;
+	private final long batchWindowNanos;
+	private final Thread writerThread;
+
+	private boolean isClosed;
+
+	public WriteQueue(SQLiteDatabase database) {
+		this(database, defaultMaxBatchSize, defaultBatchWindowMillis);
+	}
+
+	public WriteQueue(SQLiteDatabase database, int maxBatchSize, long batchWindowMillis) {
+		if (maxBatchSize < 1)
+			throw new IllegalArgumentException("The maximum batch size must be greater than zero.");
+
+		this.database = database;
+		this.maxBatchSize = maxBatchSize;
+		this.batchWindowNanos = TimeUnit.MILLISECONDS.toNanos(batchWindowMillis);
+
+		writerThread = new Thread(this::writeBatches, "querydroid-write-queue");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	public CompletableFuture<Long> execute(SqLiteCommand command) {
+		if (command.getDatabase() != database)
+			throw new IllegalArgumentException("The command must run against the write queue's database.");
+
+		final SqLiteCommand snapshot = command.snapshot();
+		return submit(database -> snapshot.execute());
+	}
+
+	public <T> CompletableFuture<Long> insertValue(String table, T value) {
+		return submit(database -> SqLiteAssistants.insertValue(database, table, value));
+	}
+
+	public <T> CompletableFuture<Long> updateValue(String table, T value) {
+		return submit(database -> SqLiteAssistants.updateValue(database, table, value));
+	}
+
+	public CompletableFuture<Long> submit(WriteOperation operation) {
+		final PendingWrite pendingWrite = new PendingWrite(operation);
+		synchronized (pendingWrites) {
+			if (isClosed)
+				pendingWrite.future.completeExceptionally(new IllegalStateException("The write queue is closed."));
+			else
+				pendingWrites.add(pendingWrite);
+		}
+
+		return pendingWrite.future;
+	}
+
+	/**
+	 * Stops accepting writes, and waits for the writes already queued to be committed.
+	 */
+	@Override
+	public void close() {
+		synchronized (pendingWrites) {
+			if (isClosed) return;
+
+			isClosed = true;
+			pendingWrites.add(PendingWrite.endOfQueue);
+		}
+
+		try {
+			writerThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void writeBatches() {
+		final ArrayList<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+		boolean isEndOfQueue = false;
+		while (!isEndOfQueue) {
+			try {
+				PendingWrite pendingWrite = pendingWrites.take();
+				final long batchDeadline = System.nanoTime() + batchWindowNanos;
+				while (pendingWrite != PendingWrite.endOfQueue) {
+					batch.add(pendingWrite);
+					if (batch.size() >= maxBatchSize) break;
+
+					pendingWrite = pendingWrites.poll(batchDeadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+					if (pendingWrite == null) break;
+				}
+
+				isEndOfQueue = pendingWrite == PendingWrite.endOfQueue;
+			} catch (InterruptedException e) {
+				isEndOfQueue = true;
+			}
+
+			writeBatch(batch);
+			batch.clear();
+		}
+	}
+
+	private void writeBatch(ArrayList<PendingWrite> batch) {
+		final long[] results = new long[batch.size()];
+		int failedIndex = -1;
+		RuntimeException failure = null;
+
+		try {
+			database.beginTransaction();
+			try {
+				for (int i = 0; i < results.length; i++) {
+					try {
+						results[i] = batch.get(i).operation.write(database);
+					} catch (RuntimeException e) {
+						failedIndex = i;
+						failure = e;
+						break;
+					}
+				}
+
+				if (failedIndex < 0) database.setTransactionSuccessful();
+			} finally {
+				database.endTransaction();
+				if (!database.inTransaction()) ResultCache.invalidateTransactionWrites();
+			}
+		} catch (RuntimeException e) {
+			for (PendingWrite pendingWrite : batch)
+				pendingWrite.future.completeExceptionally(e);
+			return;
+		}
+
+		if (failedIndex < 0) {
+			for (int i = 0; i < results.length; i++)
+				batch.get(i).future.complete(results[i]);
+			return;
+		}
+
+		// Android intercepts ROLLBACK statements as the end of its own transaction, so a failing write can't be undone
+		// with ROLLBACK TO SAVEPOINT. Instead, the rest of the group runs once more, each write in its own transaction,
+		// so that no write is replayed more than once and another failure can't roll back its neighbours.
+		batch.get(failedIndex).future.completeExceptionally(failure);
+		for (int i = 0; i < batch.size(); i++) {
+			if (i != failedIndex) writeAlone(batch.get(i));
+		}
+	}
+
+	private void writeAlone(PendingWrite pendingWrite) {
+		final long result;
+		try {
+			database.beginTransaction();
+			try {
+				result = pendingWrite.operation.write(database);
+				database.setTransactionSuccessful();
+			} finally {
+				database.endTransaction();
+				if (!database.inTransaction()) ResultCache.invalidateTransactionWrites();
+			}
+		} catch (RuntimeException e) {
+			pendingWrite.future.completeExceptionally(e);
+			return;
+		}
+
+		pendingWrite.future.complete(result);
+	}
+
+	private static class PendingWrite {
+		static final PendingWrite endOfQueue = new PendingWrite(null);
+
+		final CompletableFuture<Long> future = new CompletableFuture<>();
+		final WriteOperation operation;
+
+		PendingWrite(WriteOperation operation) {
+			this.operation = operation;
+		}
+	}
+}
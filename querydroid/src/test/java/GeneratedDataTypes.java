@@ -0,0 +1,71 @@
+import com.namehillsoftware.querydroid.GenerateMapping;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+@GenerateMapping
+public class GeneratedDataTypes {
+
+    public int id;
+    public Integer integerColumn;
+    public long longColumn;
+    public float floatColumn;
+    public Double doubleColumn;
+    private boolean booleanColumn;
+    private String stringColumn;
+    private byte[] byteArray;
+    private TestEnum testEnumColumn;
+
+    public boolean getBooleanColumn() {
+        return booleanColumn;
+    }
+
+    public void setBooleanColumn(boolean booleanColumn) {
+        this.booleanColumn = booleanColumn;
+    }
+
+    public String getStringColumn() {
+        return stringColumn;
+    }
+
+    public void setStringColumn(String stringColumn) {
+        this.stringColumn = stringColumn;
+    }
+
+    public byte[] getByteArrayColumn() {
+        return byteArray;
+    }
+
+    public void setByteArrayColumn(byte[] byteArray) {
+        this.byteArray = byteArray;
+    }
+
+    public TestEnum getTestEnumColumn() {
+        return testEnumColumn;
+    }
+
+    public void setTestEnumColumn(TestEnum testEnumColumn) {
+        this.testEnumColumn = testEnumColumn;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        GeneratedDataTypes that = (GeneratedDataTypes) o;
+        return id == that.id
+                && Objects.equals(integerColumn, that.integerColumn)
+                && longColumn == that.longColumn
+                && Float.compare(that.floatColumn, floatColumn) == 0
+                && Objects.equals(doubleColumn, that.doubleColumn)
+                && booleanColumn == that.booleanColumn
+                && Objects.equals(stringColumn, that.stringColumn)
+                && testEnumColumn == that.testEnumColumn
+                && Arrays.equals(byteArray, that.byteArray);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, integerColumn, longColumn, floatColumn, doubleColumn, booleanColumn, stringColumn, testEnumColumn, Arrays.hashCode(byteArray));
+    }
+}
@@ -0,0 +1,135 @@
+package GivenACachedQuery
+
+import DataTypesDatabaseHelper
+import KotlinDataTypes
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.namehillsoftware.querydroid.QueryExecutor
+import com.namehillsoftware.querydroid.ResultCache
+import com.namehillsoftware.querydroid.SqLiteAssistants
+import com.namehillsoftware.querydroid.SqLiteCommand
+import copyTableName
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import tableName
+import java.util.concurrent.TimeUnit
+
+@RunWith(AndroidJUnit4::class)
+class WhenTheQueriedTableChanges {
+
+    @Test
+    fun `then the cached results are refreshed`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                SqLiteAssistants.insertValue(it, tableName, KotlinDataTypes(integerColumn = 1))
+
+                val query = SqLiteCommand(it, "SELECT integerColumn FROM $tableName WHERE integerColumn < @maximum ORDER BY integerColumn")
+                    .addParameter("maximum", 10)
+                    .withCachedResults()
+
+                val initialStatistics = ResultCache.getStatistics()
+
+                val firstRead = query.fetch(Int::class.java)
+                val cachedRead = query.fetch(Int::class.java)
+                val afterCachedStatistics = ResultCache.getStatistics()
+
+                SqLiteAssistants.insertValue(it, copyTableName, KotlinDataTypes(integerColumn = 3))
+                val afterOtherTableWrite = query.fetch(Int::class.java)
+
+                SqLiteAssistants.insertValue(it, tableName, KotlinDataTypes(integerColumn = 2))
+                val afterInsert = query.fetch(Int::class.java)
+
+                SqLiteCommand(it, "UPDATE $tableName SET integerColumn = 20 WHERE integerColumn = 1").execute()
+                val afterUpdate = query.fetch(Int::class.java)
+
+                val otherParameters = query.addParameter("maximum", 30).fetch(Int::class.java)
+                val finalStatistics = ResultCache.getStatistics()
+
+                assertThat(firstRead).containsExactly(1)
+                assertThat(cachedRead).containsExactly(1)
+                assertThat(afterCachedStatistics.hits - initialStatistics.hits).isEqualTo(1)
+                assertThat(afterOtherTableWrite).containsExactly(1)
+                assertThat(afterInsert).containsExactly(1, 2)
+                assertThat(afterUpdate).containsExactly(2)
+                assertThat(otherParameters).containsExactly(2, 20)
+                assertThat(finalStatistics.hits - initialStatistics.hits).isEqualTo(2)
+                assertThat(finalStatistics.misses - initialStatistics.misses).isEqualTo(4)
+            }
+        }
+    }
+
+    @Test
+    fun `then the results of a closed database are dropped`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            val closedDatabase = databaseHelper.writableDatabase
+            SqLiteAssistants.insertValue(closedDatabase, tableName, KotlinDataTypes(integerColumn = 1))
+            SqLiteCommand(closedDatabase, "SELECT integerColumn FROM $tableName")
+                .withCachedResults()
+                .fetch(Int::class.java)
+            closedDatabase.close()
+
+            val initialStatistics = ResultCache.getStatistics()
+
+            databaseHelper.writableDatabase.use {
+                val values = SqLiteCommand(it, "SELECT integerColumn FROM $tableName")
+                    .withCachedResults()
+                    .fetch(Int::class.java)
+
+                val statistics = ResultCache.getStatistics()
+                assertThat(values).containsExactly(1)
+                assertThat(statistics.evictions - initialStatistics.evictions).isEqualTo(1)
+                assertThat(statistics.misses - initialStatistics.misses).isEqualTo(1)
+            }
+        }
+    }
+
+    @Test
+    fun `then async fetches use the cached results`() {
+        val queryExecutor = QueryExecutor(2)
+        try {
+            DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+                databaseHelper.writableDatabase.use {
+                    SqLiteAssistants.insertValue(it, tableName, KotlinDataTypes(integerColumn = 4))
+
+                    val query = SqLiteCommand(it, "SELECT integerColumn FROM $tableName WHERE integerColumn > @minimum")
+                        .addParameter("minimum", 3)
+                        .withCachedResults()
+
+                    val initialStatistics = ResultCache.getStatistics()
+                    val firstRead = query.fetchAsync(Int::class.java, queryExecutor).get(10, TimeUnit.SECONDS)
+                    val cachedRead = query.fetchAsync(Int::class.java, queryExecutor).get(10, TimeUnit.SECONDS)
+                    val statistics = ResultCache.getStatistics()
+
+                    assertThat(firstRead).containsExactly(4)
+                    assertThat(cachedRead).containsExactly(4)
+                    assertThat(statistics.misses - initialStatistics.misses).isEqualTo(1)
+                    assertThat(statistics.hits - initialStatistics.hits).isEqualTo(1)
+                }
+            }
+        } finally {
+            queryExecutor.shutdown()
+        }
+    }
+
+    @Test
+    fun `then changing a bound array changes the cached result`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                SqLiteAssistants.insertValues(it, tableName, (1..3).map { i -> KotlinDataTypes(integerColumn = i) })
+
+                val values = longArrayOf(1, 2)
+                val query = SqLiteCommand(it, "SELECT integerColumn FROM $tableName WHERE integerColumn IN (@values)")
+                    .addParameter("values", values)
+                    .withCachedResults()
+
+                val firstRead = query.fetch(Int::class.java)
+                values[1] = 3
+                val changedRead = query.fetch(Int::class.java)
+
+                assertThat(firstRead).containsExactlyInAnyOrder(1, 2)
+                assertThat(changedRead).containsExactlyInAnyOrder(1, 3)
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package GivenACachedQuery
+
+import DataTypesDatabaseHelper
+import KotlinDataTypes
+import android.database.sqlite.SQLiteDatabase
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.namehillsoftware.querydroid.ResultCache
+import com.namehillsoftware.querydroid.SqLiteAssistants
+import com.namehillsoftware.querydroid.SqLiteCommand
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import tableName
+
+@RunWith(AndroidJUnit4::class)
+class WhenWritingInsideAnOuterTransaction {
+
+    @Test
+    fun `then the writes are invalidated once the outer transaction commits`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                SQLiteDatabase.openDatabase(it.path, null, SQLiteDatabase.OPEN_READONLY).use { reader ->
+                    val query = SqLiteCommand(reader, "SELECT integerColumn FROM $tableName WHERE integerColumn >= @minimum")
+                        .addParameter("minimum", 40)
+                        .withCachedResults()
+
+                    it.beginTransactionNonExclusive()
+                    try {
+                        SqLiteAssistants.insertValues(it, tableName, (41..43).map { i -> KotlinDataTypes(integerColumn = i) })
+
+                        // Another connection reads and caches the rows from before the outer transaction commits
+                        assertThat(query.fetch(Int::class.java)).isEmpty()
+
+                        it.setTransactionSuccessful()
+                    } finally {
+                        it.endTransaction()
+                    }
+                    ResultCache.invalidateTransactionWrites()
+
+                    assertThat(query.fetch(Int::class.java)).containsExactlyInAnyOrder(41, 42, 43)
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package GivenACollectionParameter
+
+import DataTypesDatabaseHelper
+import KotlinDataTypes
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.namehillsoftware.querydroid.SqLiteAssistants
+import com.namehillsoftware.querydroid.SqLiteCommand
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatThrownBy
+import org.junit.Test
+import org.junit.runner.RunWith
+import tableName
+
+@RunWith(AndroidJUnit4::class)
+class WhenFilteringWithAnInList {
+
+    @Test
+    fun `then the filtered values are correct`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                SqLiteAssistants.insertValues(
+                    it,
+                    tableName,
+                    (1..1500).map { i -> KotlinDataTypes(integerColumn = i, stringColumn = "row $i") }
+                )
+            }
+
+            databaseHelper.writableDatabase.use {
+                val smallList = SqLiteCommand(it, "SELECT stringColumn FROM $tableName WHERE integerColumn IN (@values) AND stringColumn <> @excluded ORDER BY integerColumn")
+                    .addParameter("values", listOf(3, 5, 7))
+                    .addParameter("excluded", "row 5")
+                    .fetch(String::class.java)
+
+                val emptyList = SqLiteCommand(it, "SELECT stringColumn FROM $tableName WHERE integerColumn IN (@values)")
+                    .addParameter("values", emptyList<Int>())
+                    .fetch(String::class.java)
+
+                val splitList = SqLiteCommand(it, "SELECT integerColumn FROM $tableName WHERE integerColumn IN (@values)")
+                    .addParameter("values", LongArray(1400) { i -> i + 51L })
+                    .fetch(Int::class.java)
+
+                val updatedCount = SqLiteCommand(it, "UPDATE $tableName SET stringColumn = @updated WHERE integerColumn IN (@values)")
+                    .addParameter("updated", "updated")
+                    .addParameter("values", IntArray(1200) { i -> i + 1 })
+                    .execute()
+
+                assertThat(smallList).containsExactly("row 3", "row 7")
+                assertThat(emptyList).isEmpty()
+                assertThat(splitList).hasSize(1400).containsExactlyInAnyOrderElementsOf((51..1450).toList())
+                assertThat(updatedCount).isEqualTo(1200)
+            }
+        }
+    }
+
+    @Test
+    fun `then lists that only fit without padding are not split`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                SqLiteAssistants.insertValues(
+                    it,
+                    tableName,
+                    (1..1000).map { i -> KotlinDataTypes(integerColumn = i) }
+                )
+
+                val orderedValues = SqLiteCommand(it, "SELECT integerColumn FROM $tableName WHERE integerColumn IN (@values) ORDER BY integerColumn DESC LIMIT @limit")
+                    .addParameter("values", IntArray(997) { i -> i + 1 })
+                    .addParameter("limit", 3)
+                    .fetch(Int::class.java)
+
+                assertThat(orderedValues).containsExactly(997, 996, 995)
+            }
+        }
+    }
+
+    @Test
+    fun `then split lists read each row once`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                SqLiteAssistants.insertValues(
+                    it,
+                    tableName,
+                    (1..10).map { i -> KotlinDataTypes(integerColumn = i) }
+                )
+
+                val values = SqLiteCommand(it, "SELECT integerColumn FROM $tableName WHERE integerColumn IN (@values)")
+                    .addParameter("values", LongArray(1500) { i -> i % 5 + 1L })
+                    .fetch(Int::class.java)
+
+                assertThat(values).containsExactlyInAnyOrder(1, 2, 3, 4, 5)
+            }
+        }
+    }
+
+    @Test
+    fun `then queries that cannot be split are rejected`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                SqLiteAssistants.insertValues(
+                    it,
+                    tableName,
+                    (1..10).map { i -> KotlinDataTypes(integerColumn = i) }
+                )
+
+                val values = LongArray(1500) { i -> i + 1L }
+
+                assertThatThrownBy {
+                    SqLiteCommand(it, "DELETE FROM $tableName WHERE integerColumn NOT IN (@values)")
+                        .addParameter("values", values)
+                        .execute()
+                }.isInstanceOf(IllegalArgumentException::class.java)
+
+                assertThatThrownBy {
+                    SqLiteCommand(it, "SELECT integerColumn FROM $tableName WHERE integerColumn IN (@values) ORDER BY integerColumn")
+                        .addParameter("values", values)
+                        .fetch(Int::class.java)
+                }.isInstanceOf(IllegalArgumentException::class.java)
+
+                assertThatThrownBy {
+                    SqLiteCommand(it, "SELECT COUNT(*) FROM $tableName WHERE integerColumn IN (@values)")
+                        .addParameter("values", values)
+                        .fetch(Long::class.java)
+                }.isInstanceOf(IllegalArgumentException::class.java)
+
+                assertThat(SqLiteCommand(it, "SELECT COUNT(*) FROM $tableName").fetchScalarLong()).isEqualTo(10)
+            }
+        }
+    }
+
+    @Test
+    fun `then lists that are not a condition of the where clause are not split`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                SqLiteAssistants.insertValues(
+                    it,
+                    tableName,
+                    (1..10).map { i -> KotlinDataTypes(integerColumn = i, booleanColumn = false) }
+                )
+
+                val values = LongArray(1500) { i -> i + 1L }
+
+                assertThatThrownBy {
+                    SqLiteCommand(it, "DELETE FROM $tableName WHERE NOT integerColumn IN (@values)")
+                        .addParameter("values", values)
+                        .execute()
+                }.isInstanceOf(IllegalArgumentException::class.java)
+
+                assertThatThrownBy {
+                    SqLiteCommand(it, "DELETE FROM $tableName WHERE (integerColumn IN (@values)) = 0")
+                        .addParameter("values", values)
+                        .execute()
+                }.isInstanceOf(IllegalArgumentException::class.java)
+
+                assertThatThrownBy {
+                    SqLiteCommand(it, "UPDATE $tableName SET booleanColumn = integerColumn IN (@values)")
+                        .addParameter("values", values)
+                        .execute()
+                }.isInstanceOf(IllegalArgumentException::class.java)
+
+                assertThatThrownBy {
+                    SqLiteCommand(it, "SELECT id, id IN (@values) AS isSelected FROM $tableName")
+                        .addParameter("values", values)
+                        .fetch(Long::class.java)
+                }.isInstanceOf(IllegalArgumentException::class.java)
+
+                assertThat(SqLiteCommand(it, "SELECT COUNT(*) FROM $tableName WHERE booleanColumn = 0").fetchScalarLong()).isEqualTo(10)
+            }
+        }
+    }
+}
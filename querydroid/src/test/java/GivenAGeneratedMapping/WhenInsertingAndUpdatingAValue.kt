@@ -0,0 +1,75 @@
+package GivenAGeneratedMapping
+
+import DataTypesDatabaseHelper
+import GeneratedDataTypes
+import TestEnum
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.namehillsoftware.querydroid.SqLiteAssistants
+import com.namehillsoftware.querydroid.SqLiteCommand
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import tableName
+
+@RunWith(AndroidJUnit4::class)
+class WhenInsertingAndUpdatingAValue {
+
+    @Test
+    fun `then the mapping is generated`() {
+        assertThat(Class.forName("GeneratedDataTypes_QueryDroidMapping")).isNotNull
+    }
+
+    @Test
+    fun `then the value is correct`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            val dataId = databaseHelper.writableDatabase.use {
+                val insertedId = SqLiteAssistants.insertValue(
+                    it,
+                    tableName,
+                    GeneratedDataTypes().apply {
+                        booleanColumn = true
+                        integerColumn = 384
+                        longColumn = 9281734419L
+                        floatColumn = 518.43f
+                        doubleColumn = 96.125
+                        stringColumn = "harbor"
+                        testEnumColumn = TestEnum.OPTION_ONE
+                    }
+                )
+
+                val insertedData = SqLiteCommand(it, "SELECT * FROM $tableName WHERE id = @id")
+                    .addParameter("id", insertedId)
+                    .fetchFirst(GeneratedDataTypes::class.java)
+
+                insertedData.integerColumn = null
+                insertedData.stringColumn = "anchor"
+                insertedData.byteArrayColumn = byteArrayOf(12, 40, 7)
+                insertedData.testEnumColumn = TestEnum.OPTION_TWO
+
+                SqLiteAssistants.updateValue(it, tableName, insertedData)
+                insertedData.id
+            }
+
+            databaseHelper.readableDatabase.use {
+                val dataTypesResult = SqLiteCommand(it, "SELECT * FROM $tableName WHERE id = @id")
+                    .addParameter("id", dataId)
+                    .fetchFirst(GeneratedDataTypes::class.java)
+
+                assertThat(dataTypesResult).isEqualTo(
+                    GeneratedDataTypes().apply {
+                        id = dataId
+                        booleanColumn = true
+                        integerColumn = null
+                        longColumn = 9281734419L
+                        floatColumn = 518.43f
+                        doubleColumn = 96.125
+                        stringColumn = "anchor"
+                        byteArrayColumn = byteArrayOf(12, 40, 7)
+                        testEnumColumn = TestEnum.OPTION_TWO
+                    }
+                )
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package GivenAOneToManyJoin
+
+import DataTypesDatabaseHelper
+import KotlinDataTypes
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.namehillsoftware.querydroid.SqLiteAssistants
+import com.namehillsoftware.querydroid.SqLiteCommand
+import copyTableName
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import tableName
+
+@RunWith(AndroidJUnit4::class)
+class WhenFetchingTheParentsWithTheirChildren {
+
+    data class Child(
+        var id: Int = 0,
+        var stringColumn: String? = null,
+    )
+
+    data class Parent(
+        var id: Int = 0,
+        var stringColumn: String? = null,
+        var children: MutableList<Child>? = null,
+    )
+
+    @Test
+    fun `then each parent is mapped once with its children`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                val first = SqLiteAssistants.insertValue(it, tableName, KotlinDataTypes(stringColumn = "first"))
+                val second = SqLiteAssistants.insertValue(it, tableName, KotlinDataTypes(stringColumn = "second"))
+                val childless = SqLiteAssistants.insertValue(it, tableName, KotlinDataTypes(stringColumn = "childless"))
+
+                SqLiteAssistants.insertValue(it, copyTableName, KotlinDataTypes(integerColumn = first.toInt(), stringColumn = "first-a"))
+                SqLiteAssistants.insertValue(it, copyTableName, KotlinDataTypes(integerColumn = first.toInt(), stringColumn = "first-b"))
+                SqLiteAssistants.insertValue(it, copyTableName, KotlinDataTypes(integerColumn = second.toInt(), stringColumn = "second-a"))
+
+                val parents = SqLiteCommand(
+                    it,
+                    """SELECT p.id, p.stringColumn, c.id AS child_id, c.stringColumn AS child_stringColumn
+                        FROM $tableName p
+                        LEFT JOIN $copyTableName c ON c.integerColumn = p.id
+                        ORDER BY p.id, c.id"""
+                ).fetchOneToMany(Parent::class.java, "id", Child::class.java, "child_", "children")
+
+                assertThat(parents.map { p -> p.id.toLong() }).containsExactly(first, second, childless)
+                assertThat(parents.map { p -> p.stringColumn }).containsExactly("first", "second", "childless")
+                assertThat(parents[0].children?.map { c -> c.stringColumn }).containsExactly("first-a", "first-b")
+                assertThat(parents[1].children?.map { c -> c.stringColumn }).containsExactly("second-a")
+                assertThat(parents[2].children).isNull()
+            }
+        }
+    }
+
+    @Test
+    fun `then parents are grouped by a text key`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                SqLiteAssistants.insertValue(it, tableName, KotlinDataTypes(stringColumn = "alpha"))
+                SqLiteAssistants.insertValue(it, tableName, KotlinDataTypes(stringColumn = "beta"))
+
+                SqLiteAssistants.insertValue(it, copyTableName, KotlinDataTypes(integerColumn = 1, stringColumn = "alpha"))
+                SqLiteAssistants.insertValue(it, copyTableName, KotlinDataTypes(integerColumn = 2, stringColumn = "alpha"))
+                SqLiteAssistants.insertValue(it, copyTableName, KotlinDataTypes(integerColumn = 3, stringColumn = "beta"))
+
+                val parents = SqLiteCommand(
+                    it,
+                    """SELECT p.stringColumn, c.integerColumn AS child_id, c.stringColumn AS child_stringColumn
+                        FROM $tableName p
+                        JOIN $copyTableName c ON c.stringColumn = p.stringColumn
+                        ORDER BY p.stringColumn, c.integerColumn"""
+                ).fetchOneToMany(Parent::class.java, "stringColumn", Child::class.java, "child_", "children")
+
+                assertThat(parents.map { p -> p.stringColumn }).containsExactly("alpha", "beta")
+                assertThat(parents[0].children?.map { c -> c.id }).containsExactly(1, 2)
+                assertThat(parents[1].children?.map { c -> c.id }).containsExactly(3)
+            }
+        }
+    }
+}
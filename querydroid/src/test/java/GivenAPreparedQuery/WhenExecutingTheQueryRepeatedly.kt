@@ -0,0 +1,47 @@
+package GivenAPreparedQuery
+
+import DataTypesDatabaseHelper
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.namehillsoftware.querydroid.PreparedQuery
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(AndroidJUnit4::class)
+class WhenExecutingTheQueryRepeatedly {
+
+    private val preparedQuery = PreparedQuery.prepare("SELECT @value + @value + @other")
+
+    @Test
+    fun `then repeated parameters share a slot`() {
+        assertThat(preparedQuery.slotCount).isEqualTo(2)
+    }
+
+    @Test
+    fun `then the slots resolve by name`() {
+        assertThat(preparedQuery.getSlotName(preparedQuery.getSlot("other"))).isEqualTo("other")
+    }
+
+    @Test
+    fun `then unknown parameters have no slot`() {
+        assertThat(preparedQuery.getSlot("missing")).isEqualTo(-1)
+    }
+
+    @Test
+    fun `then each command binds its own values`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            val results = databaseHelper.readableDatabase.use { database ->
+                (1L..3L).map {
+                    preparedQuery.newCommand(database)
+                        .addParameter("value", it)
+                        .addParameter("other", 10)
+                        .addParameter("missing", "ignored")
+                        .execute()
+                }
+            }
+
+            assertThat(results).containsExactly(12L, 14L, 16L)
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package GivenAQueryListener
+
+import DataTypesDatabaseHelper
+import KotlinDataTypes
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.namehillsoftware.querydroid.QueryEvent
+import com.namehillsoftware.querydroid.QueryListener
+import com.namehillsoftware.querydroid.QueryListeners
+import com.namehillsoftware.querydroid.QueryStatistics
+import com.namehillsoftware.querydroid.SqLiteAssistants
+import com.namehillsoftware.querydroid.SqLiteCommand
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import tableName
+
+@RunWith(AndroidJUnit4::class)
+class WhenRunningQueries {
+
+    private val selectSql = "SELECT * FROM $tableName WHERE integerColumn >= @minimum AND stringColumn <> 'query-listener'"
+    private val updateSql = "UPDATE $tableName SET stringColumn = 'query-listener-update' WHERE integerColumn >= @minimum"
+
+    @Test
+    fun `then every fetch and execute is reported`() {
+        val events = ArrayList<QueryEvent>()
+        val listener = QueryListener { e -> events.add(e) }
+        val statistics = QueryStatistics()
+
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                QueryListeners.add(listener)
+                QueryListeners.add(it, statistics)
+                try {
+                    SqLiteAssistants.insertValue(it, tableName, KotlinDataTypes(integerColumn = 1, stringColumn = "one"))
+                    SqLiteAssistants.insertValue(it, tableName, KotlinDataTypes(integerColumn = 2, stringColumn = "two"))
+                    SqLiteAssistants.insertValue(it, tableName, KotlinDataTypes(integerColumn = 3, stringColumn = "three"))
+
+                    SqLiteCommand(it, selectSql).addParameter("minimum", 2).fetch(KotlinDataTypes::class.java)
+                    SqLiteCommand(it, selectSql).addParameter("minimum", 1).fetchFirst(KotlinDataTypes::class.java)
+                    SqLiteCommand(it, updateSql).addParameter("minimum", 3).execute()
+                } finally {
+                    QueryListeners.remove(listener)
+                    QueryListeners.remove(it, statistics)
+                }
+
+                SqLiteCommand(it, selectSql).addParameter("minimum", 1).fetch(KotlinDataTypes::class.java)
+            }
+        }
+
+        assertThat(events.map { e -> e.operation }).containsExactly(
+            QueryEvent.Operation.EXECUTE,
+            QueryEvent.Operation.EXECUTE,
+            QueryEvent.Operation.EXECUTE,
+            QueryEvent.Operation.FETCH,
+            QueryEvent.Operation.FETCH_FIRST,
+            QueryEvent.Operation.EXECUTE,
+        )
+        assertThat(events.map { e -> e.rowCount }).containsExactly(1L, 1L, 1L, 2L, 1L, 1L)
+
+        val selectEvents = events.filter { e -> e.sql == selectSql }
+        assertThat(selectEvents.map { e -> e.isParseCacheHit }).containsExactly(false, true)
+        assertThat(selectEvents[1].parseNanos).isZero()
+
+        val selectHistogram = statistics.getHistogram(selectSql)
+        assertThat(selectHistogram.count).isEqualTo(2)
+        assertThat(selectHistogram.rowCount).isEqualTo(3)
+        assertThat(selectHistogram.parseCacheMisses).isEqualTo(1)
+        assertThat(selectHistogram.getPercentileNanos(1.0)).isEqualTo(selectHistogram.maxNanos)
+        assertThat(selectHistogram.buckets.sum()).isEqualTo(2)
+        assertThat(statistics.getHistogram(updateSql).rowCount).isEqualTo(1)
+        assertThat(statistics.getSlowestQueries(10)).hasSize(3)
+    }
+
+    @Test
+    fun `then the statistics keep the most recently run queries`() {
+        val statistics = QueryStatistics(2)
+
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                QueryListeners.add(it, statistics)
+                try {
+                    SqLiteCommand(it, "SELECT COUNT(*) FROM $tableName WHERE integerColumn = 1").fetch(Long::class.java)
+                    SqLiteCommand(it, "  SELECT COUNT(*) FROM $tableName WHERE integerColumn = 2  ").fetch(Long::class.java)
+                    SqLiteCommand(it, "SELECT COUNT(*) FROM $tableName WHERE integerColumn = 3").fetch(Long::class.java)
+                    SqLiteCommand(it, "SELECT COUNT(*) FROM $tableName WHERE integerColumn = 2").fetch(Long::class.java)
+                } finally {
+                    QueryListeners.remove(it, statistics)
+                }
+            }
+        }
+
+        assertThat(statistics.histograms).hasSize(2)
+        assertThat(statistics.getHistogram("SELECT COUNT(*) FROM $tableName WHERE integerColumn = 1")).isNull()
+        assertThat(statistics.getHistogram(" SELECT COUNT(*) FROM $tableName WHERE integerColumn = 2 ").count).isEqualTo(2)
+        assertThat(statistics.getHistogram("SELECT COUNT(*) FROM $tableName WHERE integerColumn = 3").count).isEqualTo(1)
+    }
+}
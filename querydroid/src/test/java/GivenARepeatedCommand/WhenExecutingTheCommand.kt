@@ -0,0 +1,64 @@
+package GivenARepeatedCommand
+
+import DataTypesDatabaseHelper
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.namehillsoftware.querydroid.SqLiteCommand
+import com.namehillsoftware.querydroid.StatementCache
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import tableName
+
+@RunWith(AndroidJUnit4::class)
+class WhenExecutingTheCommand {
+
+    @Test
+    fun `then the compiled statement is reused`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                val initialStatistics = StatementCache.getStatistics()
+
+                for (i in 1..5) {
+                    SqLiteCommand(it, "INSERT INTO $tableName (integerColumn) VALUES (@integerColumn)")
+                        .addParameter("integerColumn", i)
+                        .execute()
+                }
+
+                val statistics = StatementCache.getStatistics()
+                assertThat(statistics.misses - initialStatistics.misses).isEqualTo(1)
+                assertThat(statistics.hits - initialStatistics.hits).isEqualTo(4)
+
+                assertThat(
+                    SqLiteCommand(it, "SELECT SUM(integerColumn) FROM $tableName").fetchFirst(Long::class.java)
+                ).isEqualTo(15L)
+
+                StatementCache.clear(it)
+            }
+        }
+    }
+
+    @Test
+    fun `then the statements of a closed database are released`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            val closedDatabase = databaseHelper.writableDatabase
+            SqLiteCommand(closedDatabase, "INSERT INTO $tableName (integerColumn) VALUES (@integerColumn)")
+                .addParameter("integerColumn", 1)
+                .execute()
+            closedDatabase.close()
+
+            val initialStatistics = StatementCache.getStatistics()
+
+            databaseHelper.writableDatabase.use {
+                SqLiteCommand(it, "DELETE FROM $tableName WHERE integerColumn = @integerColumn")
+                    .addParameter("integerColumn", 1)
+                    .execute()
+
+                val statistics = StatementCache.getStatistics()
+                assertThat(statistics.evictions - initialStatistics.evictions).isEqualTo(1)
+
+                StatementCache.clear(it)
+            }
+        }
+    }
+}
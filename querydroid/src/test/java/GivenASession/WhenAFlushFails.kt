@@ -0,0 +1,40 @@
+package GivenASession
+
+import DataTypesDatabaseHelper
+import KotlinDataTypes
+import android.database.sqlite.SQLiteException
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.namehillsoftware.querydroid.QuerySession
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatThrownBy
+import org.junit.Test
+import org.junit.runner.RunWith
+import tableName
+
+@RunWith(AndroidJUnit4::class)
+class WhenAFlushFails {
+
+    @Test
+    fun `then no ids are set and the writes are kept`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                val session = QuerySession(it)
+                val inserted = KotlinDataTypes(integerColumn = 1, stringColumn = "rolled back")
+                session.insertValue(tableName, inserted)
+                session.updateValue("missingTable", KotlinDataTypes(id = 1))
+
+                assertThatThrownBy { session.flush() }.isInstanceOf(SQLiteException::class.java)
+                assertThat(inserted.id).isEqualTo(0)
+                assertThat(session.get(KotlinDataTypes::class.java, 1)).isNull()
+                assertThat(session.fetch(session.mapSql("SELECT * FROM $tableName"), KotlinDataTypes::class.java)).isEmpty()
+
+                // The failed writes are still pending, so flushing again fails the same way until they are cleared
+                assertThatThrownBy { session.flush() }.isInstanceOf(SQLiteException::class.java)
+
+                session.clear()
+                assertThat(session.flush()).isEmpty()
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package GivenASession
+
+import DataTypesDatabaseHelper
+import KotlinDataTypes
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.namehillsoftware.querydroid.QuerySession
+import com.namehillsoftware.querydroid.SqLiteAssistants
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import tableName
+
+@RunWith(AndroidJUnit4::class)
+class WhenFetchingTheSameRowsAgain {
+
+    @Test
+    fun `then the same instances are returned`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                val session = QuerySession(it)
+                val inserted = (1..5).map { i -> KotlinDataTypes(integerColumn = i, stringColumn = "row $i") }
+                inserted.forEach { d -> session.insertValue(tableName, d) }
+                val insertIds = session.flush()
+
+                val allValues = session.fetch(session.mapSql("SELECT * FROM $tableName ORDER BY id"), KotlinDataTypes::class.java)
+                val someValues = session.fetch(
+                    session.mapSql("SELECT * FROM $tableName WHERE integerColumn > @minimum ORDER BY id").addParameter("minimum", 3),
+                    KotlinDataTypes::class.java
+                )
+
+                someValues[0].stringColumn = "changed"
+                session.updateValue(tableName, someValues[0])
+                val updateResults = session.flush()
+
+                val firstValue = session.fetchFirst(session.mapSql("SELECT * FROM $tableName WHERE integerColumn = 4"), KotlinDataTypes::class.java)
+                val storedString = session.fetchFirst(session.mapSql("SELECT stringColumn FROM $tableName WHERE integerColumn = 4"), String::class.java)
+
+                assertThat(insertIds).hasSize(5)
+                assertThat(allValues).usingElementComparator { a, b -> if (a === b) 0 else 1 }.containsExactlyElementsOf(inserted)
+                assertThat(someValues[0]).isSameAs(inserted[3])
+                assertThat(session.get(KotlinDataTypes::class.java, insertIds[4])).isSameAs(inserted[4])
+                assertThat(updateResults).containsExactly(1L)
+                assertThat(firstValue).isSameAs(inserted[3])
+                assertThat(storedString).isEqualTo("changed")
+            }
+        }
+    }
+
+    @Test
+    fun `then wider rows replace instances mapped from fewer columns`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                SqLiteAssistants.insertValue(it, tableName, KotlinDataTypes(integerColumn = 8, longColumn = 80L, stringColumn = "eight"))
+
+                val session = QuerySession(it)
+                val narrowValue = session.fetchFirst(session.mapSql("SELECT id, stringColumn FROM $tableName WHERE integerColumn = 8"), KotlinDataTypes::class.java)
+                val fullValue = session.fetchFirst(session.mapSql("SELECT * FROM $tableName WHERE integerColumn = 8"), KotlinDataTypes::class.java)
+                val narrowValueAgain = session.fetchFirst(session.mapSql("SELECT id, integerColumn FROM $tableName WHERE integerColumn = 8"), KotlinDataTypes::class.java)
+
+                assertThat(narrowValue.longColumn).isEqualTo(0L)
+                assertThat(fullValue).isNotSameAs(narrowValue)
+                assertThat(fullValue.longColumn).isEqualTo(80L)
+                assertThat(fullValue.stringColumn).isEqualTo("eight")
+                assertThat(narrowValueAgain).isSameAs(fullValue)
+                assertThat(session.get(KotlinDataTypes::class.java, fullValue.id.toLong())).isSameAs(fullValue)
+            }
+        }
+    }
+}
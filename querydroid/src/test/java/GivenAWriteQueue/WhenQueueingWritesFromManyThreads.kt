@@ -0,0 +1,95 @@
+package GivenAWriteQueue
+
+import DataTypesDatabaseHelper
+import KotlinDataTypes
+import android.database.sqlite.SQLiteDatabase
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.namehillsoftware.querydroid.SqLiteAssistants
+import com.namehillsoftware.querydroid.SqLiteCommand
+import com.namehillsoftware.querydroid.WriteQueue
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatThrownBy
+import org.junit.Test
+import org.junit.runner.RunWith
+import tableName
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+@RunWith(AndroidJUnit4::class)
+class WhenQueueingWritesFromManyThreads {
+
+    @Test
+    fun `then each write is committed or failed on its own`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use { database ->
+                val submitters = Executors.newFixedThreadPool(4)
+                val (inserts, failure) = WriteQueue(database, 16, 20).use { writeQueue ->
+                    val inserts = (1..40).map { i ->
+                        CompletableFuture
+                            .supplyAsync({ writeQueue.insertValue(tableName, KotlinDataTypes(integerColumn = i)) }, submitters)
+                            .thenCompose { it }
+                    }
+
+                    val failure = writeQueue.execute(SqLiteCommand(database, "INSERT INTO missingTable (missingColumn) VALUES (1)"))
+
+                    CompletableFuture.allOf(*inserts.toTypedArray()).get(10, TimeUnit.SECONDS)
+                    Pair(inserts, failure)
+                }
+                submitters.shutdown()
+
+                val values = SqLiteCommand(database, "SELECT integerColumn FROM $tableName ORDER BY integerColumn")
+                    .fetch(Int::class.java)
+
+                assertThat(inserts.map { it.get() }).doesNotHaveDuplicates().allMatch { it > 0 }
+                assertThat(values).containsExactlyElementsOf((1..40).toList())
+                assertThat(failure.isCompletedExceptionally).isTrue
+                try {
+                    failure.get()
+                } catch (e: ExecutionException) {
+                    assertThat(e.cause).hasMessageContaining("missingTable")
+                }
+            }
+        }
+    }
+
+    @Test
+    fun `then each write runs at most twice when its group has failures`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use { database ->
+                val runs = IntArray(4)
+                val results = WriteQueue(database, 8, 1000).use { writeQueue ->
+                    (0 until 4).map { i ->
+                        writeQueue.submit {
+                            runs[i]++
+                            if (i % 2 == 1) throw IllegalStateException("Write $i failed.")
+                            SqLiteAssistants.insertValue(it, tableName, KotlinDataTypes(integerColumn = i))
+                        }
+                    }
+                }
+
+                assertThat(results.map { it.isCompletedExceptionally }).containsExactly(false, true, false, true)
+                assertThat(runs).containsExactly(2, 1, 1, 1)
+                assertThat(SqLiteCommand(database, "SELECT integerColumn FROM $tableName ORDER BY integerColumn").fetch(Int::class.java))
+                    .containsExactly(0, 2)
+            }
+        }
+    }
+
+    @Test
+    fun `then a command for another database is rejected`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use { database ->
+                SQLiteDatabase.create(null).use { otherDatabase ->
+                    WriteQueue(database).use { writeQueue ->
+                        assertThatThrownBy {
+                            writeQueue.execute(SqLiteCommand(otherDatabase, "SELECT 1"))
+                        }.isInstanceOf(IllegalArgumentException::class.java)
+                    }
+                }
+            }
+        }
+    }
+}
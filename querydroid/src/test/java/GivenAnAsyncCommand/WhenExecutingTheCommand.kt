@@ -0,0 +1,75 @@
+package GivenAnAsyncCommand
+
+import DataTypesDatabaseHelper
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.namehillsoftware.querydroid.QueryEvent
+import com.namehillsoftware.querydroid.QueryExecutor
+import com.namehillsoftware.querydroid.QueryListener
+import com.namehillsoftware.querydroid.QueryListeners
+import com.namehillsoftware.querydroid.SqLiteCommand
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import tableName
+import java.util.Collections
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+
+@RunWith(AndroidJUnit4::class)
+class WhenExecutingTheCommand {
+
+    @Test
+    fun `then the reads see the serialized writes`() {
+        val queryExecutor = QueryExecutor(2)
+        try {
+            DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+                databaseHelper.writableDatabase.use {
+                    val insertCommand = SqLiteCommand(it, "INSERT INTO $tableName (integerColumn) VALUES (@value)")
+                    val inserts = (1..10).map { i ->
+                        // Changing the command after queueing it must not change what was queued
+                        insertCommand.addParameter("value", i).executeAsync(queryExecutor)
+                    }
+                    CompletableFuture.allOf(*inserts.toTypedArray()).get(10, TimeUnit.SECONDS)
+
+                    val values = SqLiteCommand(it, "SELECT integerColumn FROM $tableName WHERE integerColumn > @minimum ORDER BY integerColumn")
+                        .addParameter("minimum", 7)
+                        .fetchAsync(Int::class.java, queryExecutor)
+                        .get(10, TimeUnit.SECONDS)
+
+                    val count = SqLiteCommand(it, "SELECT COUNT(*) FROM $tableName")
+                        .fetchFirstAsync(Long::class.java, queryExecutor)
+                        .get(10, TimeUnit.SECONDS)
+
+                    assertThat(values).containsExactly(8, 9, 10)
+                    assertThat(count).isEqualTo(10L)
+                }
+            }
+        } finally {
+            queryExecutor.shutdown()
+        }
+    }
+
+    @Test
+    fun `then the parse is reported once`() {
+        val sql = "INSERT INTO $tableName (integerColumn, stringColumn) VALUES (@value, 'parse-once')"
+        val events = Collections.synchronizedList(ArrayList<QueryEvent>())
+        val listener = QueryListener { e -> events.add(e) }
+        val queryExecutor = QueryExecutor(2)
+        QueryListeners.add(listener)
+        try {
+            DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+                databaseHelper.writableDatabase.use {
+                    val insertCommand = SqLiteCommand(it, sql).addParameter("value", 1)
+                    insertCommand.executeAsync(queryExecutor).get(10, TimeUnit.SECONDS)
+                    insertCommand.execute()
+                }
+            }
+        } finally {
+            QueryListeners.remove(listener)
+            queryExecutor.shutdown()
+        }
+
+        assertThat(events.filter { e -> e.sql == sql }.map { e -> e.isParseCacheHit }).containsExactly(false, true)
+    }
+}
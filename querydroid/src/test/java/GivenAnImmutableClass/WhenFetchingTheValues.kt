@@ -0,0 +1,65 @@
+package GivenAnImmutableClass
+
+import DataTypesDatabaseHelper
+import KotlinDataTypes
+import TestEnum
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.namehillsoftware.querydroid.ColumnName
+import com.namehillsoftware.querydroid.SqLiteAssistants
+import com.namehillsoftware.querydroid.SqLiteCommand
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import tableName
+
+@RunWith(AndroidJUnit4::class)
+class WhenFetchingTheValues {
+
+    data class ImmutableDataTypes(
+        @ColumnName("id") val id: Int,
+        @ColumnName("integerColumn") val integerColumn: Int,
+        @ColumnName("stringColumn") val stringColumn: String?,
+        @ColumnName("testEnumColumn") val testEnumColumn: TestEnum?,
+        @ColumnName("booleanColumn") val isBooleanColumn: Boolean,
+        @ColumnName("missingColumn") val missingColumn: String = "default",
+    )
+
+    data class DefaultedDataTypes(
+        @ColumnName("integerColumn") val integerColumn: Int = -1,
+        @ColumnName("stringColumn") val stringColumn: String? = "default",
+    )
+
+    @Test
+    fun `then the values are constructed from the rows`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                SqLiteAssistants.insertValue(it, tableName, KotlinDataTypes(integerColumn = 5, stringColumn = "five", testEnumColumn = TestEnum.OPTION_ONE, booleanColumn = true))
+                SqLiteAssistants.insertValue(it, tableName, KotlinDataTypes(integerColumn = 6))
+
+                val values = SqLiteCommand(it, "SELECT * FROM $tableName ORDER BY integerColumn")
+                    .fetch(ImmutableDataTypes::class.java)
+
+                assertThat(values.map { d -> d.copy(id = 0) }).containsExactly(
+                    ImmutableDataTypes(0, 5, "five", TestEnum.OPTION_ONE, true),
+                    ImmutableDataTypes(0, 6, null, null, false),
+                )
+                assertThat(values.map { d -> d.id }).doesNotContain(0)
+            }
+        }
+    }
+
+    @Test
+    fun `then values whose properties all have defaults are constructed from the rows`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                SqLiteAssistants.insertValue(it, tableName, KotlinDataTypes(integerColumn = 7, stringColumn = "seven"))
+
+                val value = SqLiteCommand(it, "SELECT integerColumn, stringColumn FROM $tableName WHERE integerColumn = 7")
+                    .fetchFirst(DefaultedDataTypes::class.java)
+
+                assertThat(value).isEqualTo(DefaultedDataTypes(7, "seven"))
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package GivenAnInsertQuery
+
+import com.namehillsoftware.querydroid.SqLiteAssistants
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+
+class WhenBuildingAConflictUpdate {
+
+    @Test
+    fun `then the query is correct`() {
+        val insertBuilder = SqLiteAssistants.InsertBuilder.fromTable("library")
+            .addColumn("id")
+            .addColumn("libraryName")
+            .addColumn("accessCode")
+            .withConflictUpdate("id")
+
+        val upsertQuery = insertBuilder.buildQuery()
+        val ignoreQuery = SqLiteAssistants.InsertBuilder.fromTable("library")
+            .addColumn("id")
+            .withConflictUpdate("id")
+            .buildQuery()
+
+        assertThat(upsertQuery).isEqualTo("INSERT  INTO library (id, libraryName, accessCode) VALUES (@id, @libraryName, @accessCode) ON CONFLICT (id) DO UPDATE SET libraryName = excluded.libraryName, accessCode = excluded.accessCode")
+        assertThat(ignoreQuery).isEqualTo("INSERT  INTO library (id) VALUES (@id) ON CONFLICT (id) DO NOTHING")
+        assertThat(insertBuilder.withoutReplacement().buildQuery()).isEqualTo("INSERT  INTO library (id, libraryName, accessCode) VALUES (@id, @libraryName, @accessCode)")
+    }
+}
@@ -0,0 +1,51 @@
+package GivenAnObject
+
+import DataTypesDatabaseHelper
+import KotlinDataTypes
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.namehillsoftware.querydroid.SqLiteAssistants
+import com.namehillsoftware.querydroid.SqLiteCommand
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import tableName
+
+@RunWith(AndroidJUnit4::class)
+class WhenBindingItsPropertiesAsParameters {
+
+    data class Filter(
+        val integerColumn: Int,
+        val stringColumn: String?,
+        val unusedProperty: Long = 0L,
+    )
+
+    @Test
+    fun `then the referenced placeholders are bound from the properties`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                SqLiteAssistants.insertValue(it, tableName, KotlinDataTypes(integerColumn = 3, stringColumn = "three"))
+                SqLiteAssistants.insertValue(it, tableName, KotlinDataTypes(integerColumn = 3, stringColumn = "other"))
+                SqLiteAssistants.insertValue(it, tableName, KotlinDataTypes(integerColumn = 4, stringColumn = "three"))
+
+                val sql = "SELECT * FROM $tableName WHERE integerColumn = @integerColumn AND stringColumn = @stringColumn"
+
+                val firstValues = SqLiteCommand(it, sql)
+                    .addParameters(Filter(3, "three"))
+                    .fetch(KotlinDataTypes::class.java)
+
+                val secondValues = SqLiteCommand(it, sql)
+                    .addParameters(Filter(4, "three"))
+                    .fetch(KotlinDataTypes::class.java)
+
+                val mapValues = SqLiteCommand(it, sql)
+                    .addParameters(mapOf("integerColumn" to 3, "stringColumn" to "other") as Any)
+                    .fetch(KotlinDataTypes::class.java)
+
+                assertThat(firstValues.map { d -> d.integerColumn to d.stringColumn }).containsExactly(3 to "three")
+                assertThat(secondValues.map { d -> d.integerColumn to d.stringColumn }).containsExactly(4 to "three")
+                assertThat(mapValues.map { d -> d.integerColumn to d.stringColumn }).containsExactly(3 to "other")
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package GivenAnObject
+
+import DataTypesDatabaseHelper
+import GeneratedDataTypes
+import JavaDataTypes
+import KotlinDataTypes
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.namehillsoftware.querydroid.SqLiteAssistants
+import com.namehillsoftware.querydroid.SqLiteCommand
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import tableName
+
+@RunWith(AndroidJUnit4::class)
+class WhenInsertingAValueAndSettingItsId {
+
+    @Test
+    fun `then the generated ids are set`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                val kotlinData = KotlinDataTypes(integerColumn = 1)
+                val kotlinId = SqLiteAssistants.insertValueAndSetId(it, tableName, kotlinData)
+
+                val javaData = JavaDataTypes().apply { integerColumn = 2 }
+                val javaId = SqLiteAssistants.insertValueAndSetId(it, tableName, javaData)
+
+                val generatedData = (3..5).map { i -> GeneratedDataTypes().apply { integerColumn = i } }
+                val generatedIds = SqLiteAssistants.insertValuesAndSetIds(it, tableName, generatedData)
+
+                val storedIds = SqLiteCommand(it, "SELECT id FROM $tableName ORDER BY integerColumn").fetch(Long::class.java)
+
+                assertThat(kotlinData.id.toLong()).isEqualTo(kotlinId)
+                assertThat(javaData.id.toLong()).isEqualTo(javaId)
+                assertThat(generatedData.map { d -> d.id.toLong() }).containsExactly(*generatedIds.toTypedArray())
+                assertThat(storedIds).containsExactly(kotlinId, javaId, *generatedIds.toTypedArray())
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package GivenAnObject
+
+import DataTypesDatabaseHelper
+import KotlinDataTypes
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.namehillsoftware.querydroid.SqLiteAssistants
+import com.namehillsoftware.querydroid.SqLiteCommand
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatThrownBy
+import org.junit.Test
+import org.junit.runner.RunWith
+import tableName
+
+@RunWith(AndroidJUnit4::class)
+class WhenUpdatingOnlyTheChangedValues {
+
+    @Test
+    fun `then only the changed columns are written`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                val dataId = SqLiteAssistants.insertValue(
+                    it,
+                    tableName,
+                    KotlinDataTypes(integerColumn = 12, longColumn = 300L, stringColumn = "spring")
+                )
+
+                val fetchQuery = SqLiteCommand(it, "SELECT * FROM $tableName WHERE id = @id").addParameter("id", dataId)
+                val data = fetchQuery.fetchFirst(KotlinDataTypes::class.java)
+                val snapshot = SqLiteAssistants.snapshot(data)
+
+                // A change made elsewhere to a column this object doesn't change
+                SqLiteCommand(it, "UPDATE $tableName SET longColumn = 900 WHERE id = @id").addParameter("id", dataId).execute()
+
+                data.stringColumn = "summer"
+                val changedColumns = snapshot.getChangedColumns(data)
+                val updatedRows = SqLiteAssistants.updateChangedValue(it, tableName, data, snapshot)
+                val unchangedRows = SqLiteAssistants.updateChangedValue(it, tableName, data, SqLiteAssistants.snapshot(data))
+                val explicitRows = SqLiteAssistants.updateValue(it, tableName, data.copy(integerColumn = 15, longColumn = 1L), listOf("integerColumn"))
+
+                assertThat(changedColumns).containsExactly("stringcolumn")
+                assertThat(updatedRows).isEqualTo(1)
+                assertThat(unchangedRows).isEqualTo(0)
+                assertThat(explicitRows).isEqualTo(1)
+                assertThat(fetchQuery.fetchFirst(KotlinDataTypes::class.java)).isEqualTo(
+                    KotlinDataTypes(id = dataId.toInt(), integerColumn = 15, longColumn = 900L, stringColumn = "summer")
+                )
+            }
+        }
+    }
+
+    @Test
+    fun `then a column without a getter is rejected`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                val data = KotlinDataTypes(integerColumn = 12, stringColumn = "spring")
+                val dataId = SqLiteAssistants.insertValue(it, tableName, data)
+
+                assertThatThrownBy {
+                    SqLiteAssistants.updateValue(it, tableName, data.copy(id = dataId.toInt()), listOf("stringColumn", "missingColumn"))
+                }.isInstanceOf(IllegalArgumentException::class.java)
+            }
+        }
+    }
+}
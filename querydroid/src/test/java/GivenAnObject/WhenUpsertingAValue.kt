@@ -0,0 +1,90 @@
+package GivenAnObject
+
+import DataTypesDatabaseHelper
+import KotlinDataTypes
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.namehillsoftware.querydroid.SqLiteAssistants
+import com.namehillsoftware.querydroid.SqLiteCommand
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import tableName
+
+@RunWith(AndroidJUnit4::class)
+class WhenUpsertingAValue {
+
+    @Test
+    fun `then the existing row is updated in place`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                val dataId = SqLiteAssistants.insertValue(
+                    it,
+                    tableName,
+                    KotlinDataTypes(integerColumn = 12, stringColumn = "spring")
+                ).toInt()
+
+                SqLiteAssistants.upsertValue(
+                    it,
+                    tableName,
+                    KotlinDataTypes(id = dataId, integerColumn = 44, stringColumn = "summer"),
+                    "id"
+                )
+
+                SqLiteAssistants.upsertValue(
+                    it,
+                    tableName,
+                    KotlinDataTypes(id = dataId + 100, integerColumn = 91, stringColumn = "autumn"),
+                    "id"
+                )
+
+                val values = SqLiteCommand(it, "SELECT * FROM $tableName ORDER BY id")
+                    .fetch(KotlinDataTypes::class.java)
+
+                assertThat(values).containsExactly(
+                    KotlinDataTypes(id = dataId, integerColumn = 44, stringColumn = "summer"),
+                    KotlinDataTypes(id = dataId + 100, integerColumn = 91, stringColumn = "autumn"),
+                )
+            }
+        }
+    }
+
+    @Test
+    fun `then updating an existing row returns the changed row count`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                val dataId = SqLiteAssistants.insertValue(
+                    it,
+                    tableName,
+                    KotlinDataTypes(integerColumn = 12, stringColumn = "spring")
+                ).toInt()
+
+                val otherId = SqLiteAssistants.insertValue(
+                    it,
+                    tableName,
+                    KotlinDataTypes(integerColumn = 13, stringColumn = "other")
+                ).toInt()
+
+                val upsertedCount = SqLiteAssistants.upsertValue(
+                    it,
+                    tableName,
+                    KotlinDataTypes(id = dataId, integerColumn = 44, stringColumn = "summer"),
+                    "id"
+                )
+
+                val upsertedCounts = SqLiteAssistants.upsertValues(
+                    it,
+                    tableName,
+                    listOf(
+                        KotlinDataTypes(id = dataId, integerColumn = 45, stringColumn = "autumn"),
+                        KotlinDataTypes(id = otherId, integerColumn = 46, stringColumn = "winter"),
+                    ),
+                    "id"
+                )
+
+                assertThat(upsertedCount).isEqualTo(1)
+                assertThat(upsertedCounts).containsExactly(1L, 1L)
+            }
+        }
+    }
+}
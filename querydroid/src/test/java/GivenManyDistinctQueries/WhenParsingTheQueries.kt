@@ -0,0 +1,50 @@
+package GivenManyDistinctQueries
+
+import DataTypesDatabaseHelper
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.namehillsoftware.querydroid.QueryCache
+import com.namehillsoftware.querydroid.SqLiteCommand
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.After
+import org.junit.Test
+import org.junit.runner.RunWith
+import tableName
+
+@RunWith(AndroidJUnit4::class)
+class WhenParsingTheQueries {
+
+    private val originalCapacity = QueryCache.getCapacity()
+
+    @After
+    fun after() {
+        QueryCache.setCapacity(originalCapacity)
+    }
+
+    @Test
+    fun `then the parse cache stays bounded`() {
+        QueryCache.setCapacity(10)
+
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.readableDatabase.use {
+                val initialStatistics = QueryCache.getStatistics()
+
+                for (i in 1..50) {
+                    SqLiteCommand(it, "SELECT id FROM $tableName WHERE integerColumn = @value AND $i = $i")
+                        .addParameter("value", i)
+                        .fetch(Long::class.java)
+                }
+
+                SqLiteCommand(it, "SELECT id FROM $tableName WHERE integerColumn = @value AND 50 = 50")
+                    .addParameter("value", 50)
+                    .fetch(Long::class.java)
+
+                val statistics = QueryCache.getStatistics()
+                assertThat(statistics.size).isEqualTo(10)
+                assertThat(statistics.misses - initialStatistics.misses).isEqualTo(50)
+                assertThat(statistics.hits - initialStatistics.hits).isEqualTo(1)
+                assertThat(statistics.evictions - initialStatistics.evictions).isGreaterThanOrEqualTo(40)
+            }
+        }
+    }
+}
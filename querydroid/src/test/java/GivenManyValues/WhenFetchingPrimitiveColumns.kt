@@ -0,0 +1,47 @@
+package GivenManyValues
+
+import DataTypesDatabaseHelper
+import KotlinDataTypes
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.namehillsoftware.querydroid.SqLiteAssistants
+import com.namehillsoftware.querydroid.SqLiteCommand
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import tableName
+
+@RunWith(AndroidJUnit4::class)
+class WhenFetchingPrimitiveColumns {
+
+    @Test
+    fun `then the primitive values are correct`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                SqLiteAssistants.insertValues(
+                    it,
+                    tableName,
+                    (1..5).map { i -> KotlinDataTypes(integerColumn = i, longColumn = i * 10_000_000_000L, doubleColumn = i / 4.0) }
+                )
+
+                val longs = SqLiteCommand(it, "SELECT longColumn FROM $tableName ORDER BY integerColumn").fetchLongs()
+                val ints = SqLiteCommand(it, "SELECT integerColumn FROM $tableName WHERE integerColumn IN (@values) ORDER BY integerColumn")
+                    .addParameter("values", intArrayOf(2, 4))
+                    .fetchInts()
+                val doubles = SqLiteCommand(it, "SELECT doubleColumn FROM $tableName ORDER BY integerColumn").fetchDoubles()
+                val noInts = SqLiteCommand(it, "SELECT integerColumn FROM $tableName WHERE integerColumn > 5").fetchInts()
+                val total = SqLiteCommand(it, "SELECT SUM(integerColumn) FROM $tableName WHERE integerColumn > @minimum")
+                    .addParameter("minimum", 2)
+                    .fetchScalarLong()
+                val name = SqLiteCommand(it, "SELECT 'row ' || MAX(integerColumn) FROM $tableName").fetchScalarString()
+
+                assertThat(longs).containsExactly(10_000_000_000L, 20_000_000_000L, 30_000_000_000L, 40_000_000_000L, 50_000_000_000L)
+                assertThat(ints).containsExactly(2, 4)
+                assertThat(doubles).containsExactly(.25, .5, .75, 1.0, 1.25)
+                assertThat(noInts).isEmpty()
+                assertThat(total).isEqualTo(12L)
+                assertThat(name).isEqualTo("row 5")
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package GivenManyValues
+
+import DataTypesDatabaseHelper
+import KotlinDataTypes
+import android.database.Cursor
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.namehillsoftware.querydroid.SqLiteAssistants
+import com.namehillsoftware.querydroid.SqLiteCommand
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import tableName
+
+@RunWith(AndroidJUnit4::class)
+class WhenFetchingTheColumns {
+
+    @Test
+    fun `then the columns are correct`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                SqLiteAssistants.insertValues(
+                    it,
+                    tableName,
+                    (1..70).map { i ->
+                        KotlinDataTypes(
+                            integerColumn = i,
+                            stringColumn = if (i % 2 == 0) "row $i" else null,
+                            byteArrayColumn = if (i == 70) byteArrayOf(7) else null,
+                        )
+                    }
+                )
+
+                val columns = SqLiteCommand(it, "SELECT integerColumn, CASE WHEN integerColumn > 65 THEN integerColumn / 2.0 ELSE integerColumn END AS mixedColumn, stringColumn, byteArrayColumn FROM $tableName ORDER BY integerColumn")
+                    .fetchColumns()
+
+                val integerColumn = columns.getColumnIndex("integerColumn")
+                val mixedColumn = columns.getColumnIndex("mixedColumn")
+                val stringColumn = columns.getColumnIndex("stringColumn")
+                val byteArrayColumn = columns.getColumnIndex("byteArrayColumn")
+
+                assertThat(columns.rowCount).isEqualTo(70)
+                assertThat(columns.getColumnType(integerColumn)).isEqualTo(Cursor.FIELD_TYPE_INTEGER)
+                assertThat(columns.getLongs(integerColumn)).containsExactly(*(1..70L).toList().toLongArray())
+                assertThat(columns.getColumnType(mixedColumn)).isEqualTo(Cursor.FIELD_TYPE_FLOAT)
+                assertThat(columns.getDoubles(mixedColumn).take(3)).containsExactly(1.0, 2.0, 3.0)
+                assertThat(columns.getDoubles(mixedColumn)[69]).isEqualTo(35.0)
+                assertThat(columns.getStrings(stringColumn)[1]).isEqualTo("row 2")
+                assertThat(columns.isNull(0, stringColumn)).isTrue
+                assertThat(columns.isNull(64, stringColumn)).isTrue
+                assertThat(columns.isNull(65, integerColumn)).isFalse
+                assertThat(columns.getBlobs(byteArrayColumn)[69]).containsExactly(7)
+                assertThat(columns.isNull(68, byteArrayColumn)).isTrue
+            }
+        }
+    }
+}
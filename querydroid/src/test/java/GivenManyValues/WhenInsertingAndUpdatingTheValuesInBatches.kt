@@ -0,0 +1,66 @@
+package GivenManyValues
+
+import DataTypesDatabaseHelper
+import KotlinDataTypes
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.namehillsoftware.querydroid.SqLiteAssistants
+import com.namehillsoftware.querydroid.SqLiteCommand
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import tableName
+
+@RunWith(AndroidJUnit4::class)
+class WhenInsertingAndUpdatingTheValuesInBatches {
+
+    @Test
+    fun `then the values are correct`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            val (insertedIds, updateCounts) = databaseHelper.writableDatabase.use {
+                val insertedIds = SqLiteAssistants.insertValues(
+                    it,
+                    tableName,
+                    (1..10).map { i -> KotlinDataTypes(integerColumn = i, longColumn = i * 1000L) },
+                    3
+                )
+
+                val insertedValues = SqLiteCommand(it, "SELECT * FROM $tableName").fetch(KotlinDataTypes::class.java)
+
+                val updateCounts = SqLiteAssistants.updateValues(
+                    it,
+                    tableName,
+                    insertedValues.map { d -> d.copy(stringColumn = "updated ${d.integerColumn}") }.asIterable()
+                )
+
+                Pair(insertedIds, updateCounts)
+            }
+
+            val values = databaseHelper.readableDatabase.use {
+                SqLiteCommand(it, "SELECT * FROM $tableName ORDER BY id").fetch(KotlinDataTypes::class.java)
+            }
+
+            assertThat(insertedIds).containsExactly(*values.map { d -> d.id.toLong() }.toLongArray())
+            assertThat(updateCounts).hasSize(10).containsOnly(1L)
+            assertThat(values.map { d -> d.stringColumn }).containsExactlyElementsOf((1..10).map { i -> "updated $i" })
+            assertThat(values.map { d -> d.longColumn }).containsExactlyElementsOf((1..10).map { i -> i * 1000L })
+        }
+    }
+
+    @Test
+    fun `then each value replaces the parameters of the previous one`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                SqLiteAssistants.insertValues(
+                    it,
+                    tableName,
+                    (1..6).map { i -> KotlinDataTypes(integerColumn = i, stringColumn = if (i % 2 == 0) null else "odd $i") }
+                )
+
+                val values = SqLiteCommand(it, "SELECT * FROM $tableName ORDER BY integerColumn").fetch(KotlinDataTypes::class.java)
+
+                assertThat(values.map { d -> d.stringColumn }).containsExactly("odd 1", null, "odd 3", null, "odd 5", null)
+            }
+        }
+    }
+}
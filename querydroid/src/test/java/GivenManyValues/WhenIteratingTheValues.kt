@@ -0,0 +1,52 @@
+package GivenManyValues
+
+import DataTypesDatabaseHelper
+import KotlinDataTypes
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.namehillsoftware.querydroid.SqLiteAssistants
+import com.namehillsoftware.querydroid.SqLiteCommand
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import tableName
+import java.util.stream.Collectors
+
+@RunWith(AndroidJUnit4::class)
+class WhenIteratingTheValues {
+
+    @Test
+    fun `then the iterated, consumed, and streamed values are correct`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                for (i in 1..25) {
+                    SqLiteAssistants.insertValue(
+                        it,
+                        tableName,
+                        KotlinDataTypes(integerColumn = i, stringColumn = "row $i")
+                    )
+                }
+            }
+
+            databaseHelper.readableDatabase.use {
+                val query = SqLiteCommand(it, "SELECT * FROM $tableName WHERE integerColumn > @minimum ORDER BY integerColumn")
+                    .addParameter("minimum", 20)
+
+                val iteratedValues = query.iterate(KotlinDataTypes::class.java).use { iterator ->
+                    iterator.asSequence().map { d -> d.stringColumn }.toList()
+                }
+
+                val consumedValues = ArrayList<String?>()
+                query.forEach(KotlinDataTypes::class.java) { d -> consumedValues.add(d.stringColumn) }
+
+                val streamedValues = query.stream(KotlinDataTypes::class.java).use { stream ->
+                    stream.map { d -> d.integerColumn }.collect(Collectors.toList())
+                }
+
+                assertThat(iteratedValues).containsExactly("row 21", "row 22", "row 23", "row 24", "row 25")
+                assertThat(consumedValues).containsExactlyElementsOf(iteratedValues)
+                assertThat(streamedValues).containsExactly(21, 22, 23, 24, 25)
+            }
+        }
+    }
+}
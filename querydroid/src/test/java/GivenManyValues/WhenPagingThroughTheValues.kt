@@ -0,0 +1,87 @@
+package GivenManyValues
+
+import DataTypesDatabaseHelper
+import KotlinDataTypes
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.namehillsoftware.querydroid.SqLiteAssistants
+import com.namehillsoftware.querydroid.SqLiteCommand
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatThrownBy
+import org.junit.Test
+import org.junit.runner.RunWith
+import tableName
+
+@RunWith(AndroidJUnit4::class)
+class WhenPagingThroughTheValues {
+
+    @Test
+    fun `then the pages are correct`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                SqLiteAssistants.insertValues(
+                    it,
+                    tableName,
+                    (1..25).map { i -> KotlinDataTypes(integerColumn = i, stringColumn = "row $i") }
+                )
+            }
+
+            databaseHelper.readableDatabase.use {
+                val pager = SqLiteCommand(it, "SELECT * FROM $tableName WHERE integerColumn > @minimum")
+                    .addParameter("minimum", 5)
+                    .paginate(KotlinDataTypes::class.java, "id", 8)
+
+                val pages = ArrayList<List<Int>>()
+                while (pager.hasMorePages()) {
+                    val page = pager.nextPage().map { d -> d.integerColumn }
+                    if (page.isNotEmpty()) pages.add(page)
+                }
+
+                val descendingPage = SqLiteCommand(it, "SELECT * FROM $tableName WHERE integerColumn > @minimum")
+                    .addParameter("minimum", 5)
+                    .paginate(KotlinDataTypes::class.java, "id", 3, true)
+                    .resumeAfter(10L)
+                    .nextPage()
+                    .map { d -> d.integerColumn }
+
+                assertThat(pages).containsExactly(
+                    (6..13).toList(),
+                    (14..21).toList(),
+                    (22..25).toList(),
+                )
+                assertThat(pager.lastKey).isEqualTo(25L)
+                assertThat(descendingPage).containsExactly(9, 8, 7)
+            }
+        }
+    }
+
+    @Test
+    fun `then a query ending in a semicolon can be paged`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.writableDatabase.use {
+                SqLiteAssistants.insertValues(it, tableName, (1..5).map { i -> KotlinDataTypes(integerColumn = i) })
+
+                val page = SqLiteCommand(it, "SELECT * FROM $tableName WHERE integerColumn > @minimum; ")
+                    .addParameter("minimum", 2)
+                    .paginate(KotlinDataTypes::class.java, "id", 10)
+                    .nextPage()
+                    .map { d -> d.integerColumn }
+
+                assertThat(page).containsExactly(3, 4, 5)
+            }
+        }
+    }
+
+    @Test
+    fun `then a query that would be split is rejected`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            databaseHelper.readableDatabase.use {
+                val command = SqLiteCommand(it, "SELECT * FROM $tableName WHERE integerColumn IN (@values)")
+                    .addParameter("values", LongArray(1400) { i -> i.toLong() })
+
+                assertThatThrownBy { command.paginate(KotlinDataTypes::class.java, "id", 10) }
+                    .isInstanceOf(IllegalArgumentException::class.java)
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package GivenTypedParameters
+
+import DataTypesDatabaseHelper
+import TestEnum
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.namehillsoftware.querydroid.SqLiteCommand
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(AndroidJUnit4::class)
+class WhenQueryingTheParameterTypes {
+
+    data class ParameterTypes(
+        var intType: String? = null,
+        var longType: String? = null,
+        var booleanType: String? = null,
+        var floatType: String? = null,
+        var doubleType: String? = null,
+        var stringType: String? = null,
+        var enumType: String? = null,
+        var blobType: String? = null,
+        var nullType: String? = null,
+        var boxedLongType: String? = null,
+    )
+
+    @Test
+    fun `then the parameter types are preserved`() {
+        DataTypesDatabaseHelper(ApplicationProvider.getApplicationContext()).use { databaseHelper ->
+            val parameterTypes = databaseHelper.readableDatabase.use {
+                SqLiteCommand(
+                    it,
+                    """SELECT typeof(@int) AS intType,
+                        typeof(@long) AS longType,
+                        typeof(@boolean) AS booleanType,
+                        typeof(@float) AS floatType,
+                        typeof(@double) AS doubleType,
+                        typeof(@string) AS stringType,
+                        typeof(@enum) AS enumType,
+                        typeof(@blob) AS blobType,
+                        typeof(@null) AS nullType,
+                        typeof(@boxedLong) AS boxedLongType"""
+                )
+                    .addParameter("int", 91)
+                    .addParameter("long", 8837291003L)
+                    .addParameter("boolean", true)
+                    .addParameter("float", 1.5f)
+                    .addParameter("double", 44.125)
+                    .addParameter("string", "12")
+                    .addParameter("enum", TestEnum.OPTION_ONE)
+                    .addParameter("blob", byteArrayOf(1, 2))
+                    .addParameter("null", null as String?)
+                    .addParameter("boxedLong", 77L as Any)
+                    .fetchFirst(ParameterTypes::class.java)
+            }
+
+            assertThat(parameterTypes).isEqualTo(
+                ParameterTypes(
+                    intType = "integer",
+                    longType = "integer",
+                    booleanType = "integer",
+                    floatType = "real",
+                    doubleType = "real",
+                    stringType = "text",
+                    enumType = "text",
+                    blobType = "blob",
+                    nullType = "null",
+                    boxedLongType = "integer",
+                )
+            )
+        }
+    }
+}